@@ -0,0 +1,127 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.weaving.it;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.weaving.ExternalTaskRetryWeaving;
+import org.camunda.bpm.client.impl.EngineClient;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.impl.ExternalTaskImpl;
+import org.camunda.bpm.client.topic.impl.TopicSubscriptionManager;
+import org.camunda.bpm.client.variable.impl.TypedValues;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs lambda-handlers by the external-task-client as woven by the aspectj-maven-plugin, no spring-context involved.
+ */
+public class WovenClientTest {
+
+    private final EngineClient engineClient = mock(EngineClient.class);
+    private final WovenSubscriptions subscriptions = new WovenSubscriptions(this.engineClient);
+    private ExternalTaskRetryWeaving weaving;
+
+
+    @BeforeEach
+    public void initWeaving() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.setDefaultBehavior("R3/PT5M");
+        this.weaving = new ExternalTaskRetryWeaving(
+                new ExternalTaskRetryAspect(new BusinessErrorService(), new FailureService(new PropertyService(properties))));
+        this.weaving.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void destroyWeaving() {
+        this.weaving.destroy();
+    }
+
+
+    @Test
+    public void failingLambdaTest() throws Exception {
+        this.subscriptions.handle(task(), Handlers.failing(new RuntimeException("failure")));
+
+        verify(this.engineClient).failure(eq("taskId"), eq("RuntimeException: failure"), anyString(), eq(3), eq(5 * 60 * 1000L), any(), any());
+    }
+
+
+    @Test
+    public void completingLambdaTest() throws Exception {
+        this.subscriptions.handle(task(), Handlers.completing());
+
+        verify(this.engineClient, never()).failure(anyString(), anyString(), anyString(), anyInt(), anyLong(), any(), any());
+    }
+
+
+    private static ExternalTask task() {
+        final ExternalTaskImpl externalTask = new ExternalTaskImpl();
+        externalTask.setId("taskId");
+        externalTask.setTopicName("topic");
+        externalTask.setVariables(new HashMap<>());
+        externalTask.setExtensionProperties(Map.of());
+        return externalTask; // 1st try, no retries set yet
+    }
+
+
+    /**
+     * The client's fetch-loop hands each task to {@code handleExternalTask}, which calls the handler.
+     */
+    private static class WovenSubscriptions extends TopicSubscriptionManager {
+
+        WovenSubscriptions(final EngineClient engineClient) {
+            super(engineClient, mock(TypedValues.class), 1000L);
+        }
+
+        void handle(final ExternalTask externalTask, final ExternalTaskHandler externalTaskHandler) {
+            this.handleExternalTask(externalTask, externalTaskHandler);
+        }
+    }
+
+}
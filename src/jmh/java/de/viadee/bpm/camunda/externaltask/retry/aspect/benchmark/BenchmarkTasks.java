@@ -0,0 +1,72 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.benchmark;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.impl.ExternalTaskImpl;
+
+import java.util.Map;
+
+/**
+ * Tasks and exceptions shared by the benchmarks.
+ */
+final class BenchmarkTasks {
+
+    static final String RETRY_CONFIG = "RETRY_CONFIG";
+
+    private BenchmarkTasks() {
+    }
+
+
+    static ExternalTask task(final String retryConfig, final Integer retries) {
+        final ExternalTaskImpl externalTask = new ExternalTaskImpl();
+        externalTask.setId("benchmark-task");
+        externalTask.setTopicName("benchmark-topic");
+        externalTask.setProcessInstanceId("benchmark-process-instance");
+        externalTask.setActivityId("benchmark-activity");
+        externalTask.setRetries(retries);
+        externalTask.setExtensionProperties(retryConfig.isEmpty() ? Map.of() : Map.of(RETRY_CONFIG, retryConfig));
+        return externalTask;
+    }
+
+    /**
+     * @param causes number of nested causes below the thrown exception
+     */
+    static RuntimeException exception(final int causes) {
+        RuntimeException exception = new IllegalStateException("root cause");
+        for (int i = 0; i < causes; i++) {
+            exception = new RuntimeException("wrapped " + i, exception);
+        }
+        return exception;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.benchmark;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportingExecutor;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Business-error path from the thrown error to the bpmn-error report, with and without variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessErrorServiceBenchmark {
+
+    private ReportingExecutor reportingExecutor;
+    private BusinessErrorService businessErrorService;
+    private ExternalTask externalTask;
+    private ExternalTaskService externalTaskService;
+    private ExternalTaskBusinessError businessError;
+    private ExternalTaskBusinessError businessErrorWithVariables;
+
+    @Setup
+    public void setup() {
+        this.reportingExecutor = new ReportingExecutor(new ExternalTaskRetryAspectProperties.AsyncReporting());
+        this.businessErrorService = new BusinessErrorService(this.reportingExecutor);
+        this.externalTask = BenchmarkTasks.task("", null);
+        this.externalTaskService = new NoOpExternalTaskService();
+        this.businessError = new ExternalTaskBusinessError("code", "message");
+        this.businessErrorWithVariables = new ExternalTaskBusinessError("code", "message", Map.of("variable", "value"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reportingExecutor.close();
+    }
+
+
+    @Benchmark
+    public void handleError() {
+        this.businessErrorService.handleError(BusinessErrorServiceBenchmark.class, this.externalTask, this.externalTaskService, this.businessError);
+    }
+
+    @Benchmark
+    public void handleErrorWithVariables() {
+        this.businessErrorService.handleError(BusinessErrorServiceBenchmark.class, this.externalTask, this.externalTaskService,
+                this.businessErrorWithVariables);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.benchmark;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.CircuitBreakerService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportingExecutor;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryBudgetService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.StackTraceRenderer;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failure-path from the retry-decision to the report, with small and deep cause-chains
+ * and full or compact error-details. Logging is switched off, see logback-test.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FailureServiceBenchmark {
+
+    @Param({"0", "10"})
+    public int causes;
+
+    @Param({"false", "true"})
+    public boolean compactErrorDetails;
+
+    private ReportingExecutor reportingExecutor;
+    private FailureService failureService;
+    private ExternalTask externalTask;
+    private ExternalTaskService externalTaskService;
+    private RuntimeException exception;
+
+    @Setup
+    public void setup() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.getErrorDetails().setCompact(this.compactErrorDetails);
+
+        this.reportingExecutor = new ReportingExecutor(properties.getAsyncReporting());
+        this.failureService = FailureService.builder(new PropertyService(properties))
+                .retryBudgetService(new RetryBudgetService(properties.getBudget()))
+                .circuitBreakerService(new CircuitBreakerService(properties.getCircuitBreaker()))
+                .reportingExecutor(this.reportingExecutor)
+                .stackTraceRenderer(new StackTraceRenderer(properties.getErrorDetails()))
+                .build();
+        this.externalTask = BenchmarkTasks.task("R3/PT5M", 2);
+        this.externalTaskService = new NoOpExternalTaskService();
+        this.exception = BenchmarkTasks.exception(this.causes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reportingExecutor.close();
+    }
+
+
+    @Benchmark
+    public void handleFailure() {
+        this.failureService.handleFailure(FailureServiceBenchmark.class, this.externalTask, this.externalTaskService, this.exception);
+    }
+
+    @Benchmark
+    public void handleInstantIncident() {
+        this.failureService.handleFailure(FailureServiceBenchmark.class, this.externalTask, this.externalTaskService, this.exception, true);
+    }
+
+}
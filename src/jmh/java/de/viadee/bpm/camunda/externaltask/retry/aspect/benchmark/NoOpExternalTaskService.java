@@ -0,0 +1,117 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.benchmark;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+import java.util.Map;
+
+/**
+ * Accepts every report without any round-trip to the engine.
+ */
+class NoOpExternalTaskService implements ExternalTaskService {
+
+    @Override
+    public void lock(final String externalTaskId, final long lockDuration) {
+    }
+
+    @Override
+    public void lock(final ExternalTask externalTask, final long lockDuration) {
+    }
+
+    @Override
+    public void unlock(final ExternalTask externalTask) {
+    }
+
+    @Override
+    public void complete(final ExternalTask externalTask) {
+    }
+
+    @Override
+    public void setVariables(final String processInstanceId, final Map<String, Object> variables) {
+    }
+
+    @Override
+    public void setVariables(final ExternalTask externalTask, final Map<String, Object> variables) {
+    }
+
+    @Override
+    public void complete(final ExternalTask externalTask, final Map<String, Object> variables) {
+    }
+
+    @Override
+    public void complete(final ExternalTask externalTask, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+    }
+
+    @Override
+    public void complete(final String externalTaskId, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+    }
+
+    @Override
+    public void handleFailure(final ExternalTask externalTask, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+    }
+
+    @Override
+    public void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+    }
+
+    @Override
+    public void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout,
+                              final Map<String, Object> variables, final Map<String, Object> localVariables) {
+    }
+
+    @Override
+    public void handleBpmnError(final ExternalTask externalTask, final String errorCode) {
+    }
+
+    @Override
+    public void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage) {
+    }
+
+    @Override
+    public void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+    }
+
+    @Override
+    public void handleBpmnError(final String externalTaskId, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+    }
+
+    @Override
+    public void extendLock(final ExternalTask externalTask, final long newDuration) {
+    }
+
+    @Override
+    public void extendLock(final String externalTaskId, final long newDuration) {
+    }
+
+}
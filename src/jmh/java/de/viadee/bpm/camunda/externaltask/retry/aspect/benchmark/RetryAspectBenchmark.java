@@ -0,0 +1,143 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.benchmark;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportingExecutor;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the retry-aspect: the same handler called directly and through the proxy, succeeding and failing.
+ * The failing handler throws a pre-allocated exception, so only the aspect's share is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetryAspectBenchmark {
+
+    private ExternalTaskHandler succeedingHandler;
+    private ExternalTaskHandler failingHandler;
+    private ExternalTaskHandler proxiedSucceedingHandler;
+    private ExternalTaskHandler proxiedFailingHandler;
+    private ExternalTask externalTask;
+    private ExternalTaskService externalTaskService;
+    private ReportingExecutor reportingExecutor;
+
+    @Setup
+    public void setup() {
+        final RuntimeException failure = BenchmarkTasks.exception(0);
+        this.succeedingHandler = (externalTask, externalTaskService) -> externalTaskService.complete(externalTask);
+        this.failingHandler = (externalTask, externalTaskService) -> {
+            throw failure;
+        };
+
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        this.reportingExecutor = new ReportingExecutor(properties.getAsyncReporting());
+        final ExternalTaskRetryAspect retryAspect = new ExternalTaskRetryAspect(
+                new BusinessErrorService(this.reportingExecutor),
+                FailureService.builder(new PropertyService(properties))
+                        .reportingExecutor(this.reportingExecutor)
+                        .build());
+        this.proxiedSucceedingHandler = proxy(this.succeedingHandler, retryAspect);
+        this.proxiedFailingHandler = proxy(this.failingHandler, retryAspect);
+
+        this.externalTask = BenchmarkTasks.task("R3/PT5M", 2);
+        this.externalTaskService = new NoOpExternalTaskService();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reportingExecutor.close();
+    }
+
+
+    @Benchmark
+    public void directSuccess() {
+        this.succeedingHandler.execute(this.externalTask, this.externalTaskService);
+    }
+
+    @Benchmark
+    public void proxiedSuccess() {
+        this.proxiedSucceedingHandler.execute(this.externalTask, this.externalTaskService);
+    }
+
+    @Benchmark
+    public void directFailure(final Blackhole blackhole) {
+        try {
+            this.failingHandler.execute(this.externalTask, this.externalTaskService);
+        } catch (final RuntimeException exception) {
+            blackhole.consume(exception);
+        }
+    }
+
+    @Benchmark
+    public void proxiedFailure(final Blackhole blackhole) {
+        try {
+            this.proxiedFailingHandler.execute(this.externalTask, this.externalTaskService);
+        } catch (final RuntimeException exception) {
+            // rethrown after handling, like caught by the client
+            blackhole.consume(exception);
+        }
+    }
+
+
+    private static ExternalTaskHandler proxy(final ExternalTaskHandler handler, final ExternalTaskRetryAspect retryAspect) {
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(handler);
+        proxyFactory.addAspect(retryAspect);
+        return proxyFactory.getProxy();
+    }
+
+}
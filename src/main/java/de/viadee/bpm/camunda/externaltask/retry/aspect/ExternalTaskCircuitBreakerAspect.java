@@ -0,0 +1,106 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.CircuitBreakerService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExceptionClassifier;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.springframework.core.annotation.Order;
+
+
+/**
+ * Counts consecutive failures per handler-class. While the circuit-breaker is open, fetched tasks
+ * are given back to the engine without being executed, only active if the circuit-breaker is enabled.
+ */
+@Aspect
+@Order(ExternalTaskCircuitBreakerAspect.ORDER)
+public class ExternalTaskCircuitBreakerAspect {
+
+    public static final int ORDER = ExternalTaskRetryAspect.ORDER + 200;
+
+    private final CircuitBreakerService circuitBreakerService;
+    private final FailureService failureService;
+    private final ExceptionClassifier exceptionClassifier;
+
+    public ExternalTaskCircuitBreakerAspect(final CircuitBreakerService circuitBreakerService, final FailureService failureService) {
+        this(circuitBreakerService, failureService, failureService.getExceptionClassifier());
+    }
+
+    /**
+     * @param exceptionClassifier classifies failures once, the classification is held for the error-handling
+     */
+    public ExternalTaskCircuitBreakerAspect(final CircuitBreakerService circuitBreakerService,
+                                            final FailureService failureService,
+                                            final ExceptionClassifier exceptionClassifier) {
+        this.circuitBreakerService = circuitBreakerService;
+        this.failureService = failureService;
+        this.exceptionClassifier = exceptionClassifier;
+    }
+
+    @Around(value = "de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect.externalTaskHandlerExecute(externalTask, externalTaskService)",
+            argNames = "joinPoint,externalTask,externalTaskService")
+    public Object guardExecution(final ProceedingJoinPoint joinPoint,
+                                 final ExternalTask externalTask,
+                                 final ExternalTaskService externalTaskService) throws Throwable {
+
+        final Class<?> origin = joinPoint.getTarget().getClass();
+        if (!this.circuitBreakerService.isCallPermitted(origin)) {
+            this.failureService.handleCircuitBreakerOpen(origin, externalTask, externalTaskService);
+            return null;
+        }
+
+        try {
+            final Object result = joinPoint.proceed();
+            this.circuitBreakerService.recordSuccess(origin);
+            return result;
+
+        } catch (final Exception exception) {
+            switch (this.exceptionClassifier.classifyAndHold(exception).getOutcome()) {
+                // handled within the process, the handler itself is fine
+                case BUSINESS_ERROR -> this.circuitBreakerService.recordSuccess(origin);
+                // raised on purpose or classified so, a probe is not decided by it
+                case INSTANT_INCIDENT -> this.circuitBreakerService.releaseProbe(origin);
+                case RETRY -> this.circuitBreakerService.recordFailure(origin);
+            }
+            throw exception;
+
+        } catch (final Throwable throwable) {
+            this.circuitBreakerService.recordFailure(origin);
+            throw throwable;
+        }
+    }
+}
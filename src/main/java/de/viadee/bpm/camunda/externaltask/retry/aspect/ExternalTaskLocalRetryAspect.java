@@ -0,0 +1,143 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExceptionClassifier;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.Loggers;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.springframework.core.annotation.Order;
+
+import java.util.Objects;
+
+
+/**
+ * Re-invokes a failing handler a few times within the same lock, before the failure is reported to the engine.
+ * Transient errors are thereby handled without any round-trip to the engine, only active if local-retry is enabled.
+ */
+@Aspect
+@Order(ExternalTaskLocalRetryAspect.ORDER)
+public class ExternalTaskLocalRetryAspect {
+
+    public static final int ORDER = ExternalTaskRetryAspect.ORDER + 400;
+
+    private final ExternalTaskRetryAspectProperties.LocalRetry properties;
+    private final ExceptionClassifier exceptionClassifier;
+
+    public ExternalTaskLocalRetryAspect(final ExternalTaskRetryAspectProperties.LocalRetry properties) {
+        this(properties, ExceptionClassifier.NONE);
+    }
+
+    public ExternalTaskLocalRetryAspect(final ExternalTaskRetryAspectProperties.LocalRetry properties,
+                                        final ExceptionClassifier exceptionClassifier) {
+        this.properties = properties;
+        this.exceptionClassifier = exceptionClassifier;
+    }
+
+    @Around(value = "de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect.externalTaskHandlerExecute(externalTask, externalTaskService)",
+            argNames = "joinPoint,externalTask,externalTaskService")
+    public Object retryLocally(final ProceedingJoinPoint joinPoint,
+                               final ExternalTask externalTask,
+                               final ExternalTaskService externalTaskService) throws Throwable {
+
+        long lockExpiration = Objects.isNull(externalTask.getLockExpirationTime())
+                ? Long.MAX_VALUE // unknown, the lock-extension is up to the handler
+                : externalTask.getLockExpirationTime().getTime();
+        long backoff = this.properties.getBackoff().toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+
+            } catch (final ExternalTaskBusinessError | InstantIncidentException intended) {
+                throw intended;
+
+            } catch (final Exception exception) {
+                if (attempt >= this.properties.getMaxAttempts() || this.exceptionClassifier.classify(exception).isIntended()) {
+                    throw exception;
+                }
+                lockExpiration = this.ensureLock(externalTask, externalTaskService, lockExpiration, backoff);
+                if (lockExpiration < 0) {
+                    throw exception;
+                }
+
+                final Logger logger = Loggers.of(joinPoint.getTarget().getClass());
+                if (logger.isDebugEnabled()) {
+                    logger.debug("{}: {}. Attempt {} of {} failed, retrying locally in {}ms",
+                            exception.getClass().getSimpleName(), exception.getMessage(), attempt, this.properties.getMaxAttempts(), backoff);
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (final InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw exception;
+                }
+                backoff = (long) Math.min(backoff * this.properties.getMultiplier(), this.properties.getMaximumBackoff().toMillis());
+            }
+        }
+    }
+
+
+    /**
+     * @return the (possibly extended) lock-expiration, or -1 if there is not enough time left for another attempt
+     */
+    private long ensureLock(final ExternalTask externalTask,
+                            final ExternalTaskService externalTaskService,
+                            final long lockExpiration,
+                            final long backoff) {
+
+        final long now = System.currentTimeMillis();
+        final long required = backoff + this.properties.getMinimumLockRemaining().toMillis();
+        if (lockExpiration - now >= required) {
+            return lockExpiration;
+        }
+
+        final long lockExtension = this.properties.getLockExtension().toMillis();
+        if (lockExtension < required) {
+            return -1L;
+        }
+        try {
+            externalTaskService.extendLock(externalTask, lockExtension);
+            return now + lockExtension;
+        } catch (final RuntimeException extendLockFailed) {
+            // eg. lock already lost, let the engine decide
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.LockWatchdog;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.springframework.core.annotation.Order;
+
+
+/**
+ * Keeps the lock of a task while its handler is running, so it is not fetched and executed by another worker
+ * in parallel, only active if the lock-watchdog is enabled.
+ */
+@Aspect
+@Order(ExternalTaskLockWatchdogAspect.ORDER)
+public class ExternalTaskLockWatchdogAspect {
+
+    public static final int ORDER = ExternalTaskRetryAspect.ORDER + 100;
+
+    private final LockWatchdog lockWatchdog;
+
+    public ExternalTaskLockWatchdogAspect(final LockWatchdog lockWatchdog) {
+        this.lockWatchdog = lockWatchdog;
+    }
+
+    @Around(value = "de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect.externalTaskHandlerExecute(externalTask, externalTaskService)",
+            argNames = "joinPoint,externalTask,externalTaskService")
+    public Object watchLock(final ProceedingJoinPoint joinPoint,
+                            final ExternalTask externalTask,
+                            final ExternalTaskService externalTaskService) throws Throwable {
+
+        try (LockWatchdog.Watch ignored = this.lockWatchdog.watch(externalTask, externalTaskService)) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -31,9 +31,8 @@
  */
 package de.viadee.bpm.camunda.externaltask.retry.aspect;
 
-import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
-import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorHandlingService;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
@@ -41,17 +40,27 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.camunda.bpm.client.task.ExternalTask;
 import org.camunda.bpm.client.task.ExternalTaskService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 
 
 @Aspect
+@Order(ExternalTaskRetryAspect.ORDER)
 public class ExternalTaskRetryAspect {
 
-    private final BusinessErrorService businessErrorService;
-    private final FailureService failureService;
+    /**
+     * Outermost of the aspects around an external-task-handler, further aspects are ordered after this one.
+     */
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+    private final ErrorHandlingService errorHandlingService;
 
     public ExternalTaskRetryAspect(final BusinessErrorService businessErrorService, final FailureService failureService) {
-        this.businessErrorService = businessErrorService;
-        this.failureService = failureService;
+        this(new ErrorHandlingService(businessErrorService, failureService));
+    }
+
+    public ExternalTaskRetryAspect(final ErrorHandlingService errorHandlingService) {
+        this.errorHandlingService = errorHandlingService;
     }
 
     @Pointcut(value = "execution(public void  org.camunda.bpm.client.task.ExternalTaskHandler.execute(..)) " +
@@ -68,15 +77,17 @@ public class ExternalTaskRetryAspect {
                                        final ExternalTask externalTask,
                                        final ExternalTaskService externalTaskService) {
 
-        if (exception instanceof ExternalTaskBusinessError) {
-            this.businessErrorService.handleError(joinPoint.getTarget().getClass(), externalTask, externalTaskService, (ExternalTaskBusinessError) exception);
-
-        } else if (exception instanceof InstantIncidentException) {
-            this.failureService.handleFailure(joinPoint.getTarget().getClass(), externalTask, externalTaskService, exception, true);
+        this.handleError(joinPoint.getTarget().getClass(), exception, externalTask, externalTaskService);
+    }
 
-        } else {
-            this.failureService.handleFailure(joinPoint.getTarget().getClass(), externalTask, externalTaskService, exception);
+    /**
+     * Handles an error thrown by the handler of the given class, also used if woven by AspectJ instead of proxied.
+     */
+    public void handleError(final Class<?> origin,
+                            final Exception exception,
+                            final ExternalTask externalTask,
+                            final ExternalTaskService externalTaskService) {
 
-        }
+        this.errorHandlingService.handleError(origin, exception, externalTask, externalTaskService);
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorHandlingService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionTimer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.springframework.core.annotation.Order;
+
+
+/**
+ * Measures each handler-execution, including local retries, and hands it to the {@link ExecutionRecorder}
+ * along with its outcome. Failed executions are recorded by the {@link ErrorHandlingService}, once the
+ * outcome actually reported is known. Tasks given back by an open circuit-breaker are not executed and
+ * thereby not measured, only active if timing is enabled.
+ */
+@Aspect
+@Order(ExternalTaskTimingAspect.ORDER)
+public class ExternalTaskTimingAspect {
+
+    public static final int ORDER = ExternalTaskRetryAspect.ORDER + 300;
+
+    private final ExecutionTimer executionTimer;
+
+    public ExternalTaskTimingAspect(final ExecutionTimer executionTimer) {
+        this.executionTimer = executionTimer;
+    }
+
+    @Around(value = "de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect.externalTaskHandlerExecute(externalTask, externalTaskService)",
+            argNames = "joinPoint,externalTask,externalTaskService")
+    public Object measureExecution(final ProceedingJoinPoint joinPoint,
+                                   final ExternalTask externalTask,
+                                   final ExternalTaskService externalTaskService) throws Throwable {
+
+        final long start = System.nanoTime();
+        try {
+            final Object result = joinPoint.proceed();
+            this.executionTimer.record(joinPoint.getTarget().getClass(), externalTask, ExecutionRecorder.Outcome.SUCCESS, System.nanoTime() - start);
+            return result;
+
+        } catch (final Exception exception) {
+            // recorded once handled, along with the outcome actually reported
+            this.executionTimer.hold(System.nanoTime() - start);
+            throw exception;
+
+        } catch (final Throwable throwable) {
+            // errors are not handled at all, the task is fetched again once its lock expires
+            this.executionTimer.record(joinPoint.getTarget().getClass(), externalTask, ExecutionRecorder.Outcome.RETRY, System.nanoTime() - start);
+            throw throwable;
+        }
+    }
+}
@@ -31,53 +31,245 @@
  */
 package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
 
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskCircuitBreakerAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskLocalRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskLockWatchdogAspect;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryBudgetAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskTimeoutAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskTimingAspect;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.CircuitBreakerService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorDetailsDeduplicator;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorHandlingService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExceptionClassifier;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionTimer;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionTimeoutService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureLogLimiter;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.LatencyHistogramRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.LockWatchdog;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportOutbox;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportingExecutor;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryBudgetService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryMetrics;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryServiceFactory;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.StackTraceRenderer;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.weaving.ExternalTaskRetryWeaving;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
 
 
 @Configuration
 @EnableAspectJAutoProxy(proxyTargetClass = true)
 @EnableConfigurationProperties(ExternalTaskRetryAspectProperties.class)
+@ImportRuntimeHints(ExternalTaskRetryRuntimeHints.class)
 public class ExternalTaskRetryAspectAutoConfiguration {
 
     private final ExternalTaskRetryAspectProperties externalTaskRetryAspectProperties;
+    private final RetryServiceFactory retryServiceFactory;
 
     public ExternalTaskRetryAspectAutoConfiguration(final ExternalTaskRetryAspectProperties externalTaskRetryAspectProperties) {
         this.externalTaskRetryAspectProperties = externalTaskRetryAspectProperties;
+        this.retryServiceFactory = new RetryServiceFactory(externalTaskRetryAspectProperties);
     }
 
     @Bean
     @ConditionalOnMissingBean
     public BusinessErrorService businessErrorService() {
-        return new BusinessErrorService();
+        return new BusinessErrorService(this.reportingExecutor(), this.retryMetrics());
     }
 
     @Bean
     @ConditionalOnMissingBean
     public FailureService failureHandlingService() {
-        return new FailureService(this.propertyService());
+        return FailureService.builder(this.propertyService())
+                .retryBudgetService(this.retryBudgetService())
+                .circuitBreakerService(this.circuitBreakerService())
+                .reportingExecutor(this.reportingExecutor())
+                .stackTraceRenderer(this.stackTraceRenderer())
+                .errorDetailsDeduplicator(this.errorDetailsDeduplicator())
+                .failureLogLimiter(this.failureLogLimiter())
+                .retryMetrics(this.retryMetrics())
+                .build();
     }
 
     @Bean
     @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.weaving", name = "enabled", havingValue = "false", matchIfMissing = true)
     public ExternalTaskRetryAspect externalTaskRetryAspect() {
-        return new ExternalTaskRetryAspect(
+        return new ExternalTaskRetryAspect(this.errorHandlingService());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.weaving", name = "enabled", havingValue = "true")
+    public ExternalTaskRetryWeaving externalTaskRetryWeaving() {
+        // not a bean itself, otherwise it would be applied by proxies as well
+        return new ExternalTaskRetryWeaving(new ExternalTaskRetryAspect(this.errorHandlingService()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ErrorHandlingService errorHandlingService() {
+        return new ErrorHandlingService(
                 this.businessErrorService(),
-                this.failureHandlingService()
+                this.failureHandlingService(),
+                this.executionTimer()
         );
     }
 
     @Bean
     @ConditionalOnMissingBean
     public PropertyService propertyService() {
-        return new PropertyService(this.externalTaskRetryAspectProperties);
+        return this.retryServiceFactory.propertyService(this.exceptionClassifier());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExceptionClassifier exceptionClassifier() {
+        return this.retryServiceFactory.exceptionClassifier();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReportingExecutor reportingExecutor() {
+        return this.retryServiceFactory.reportingExecutor(
+                this.externalTaskRetryAspectProperties.getOutbox().isEnabled() ? this.reportOutbox() : ReportOutbox.NONE);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.outbox", name = "enabled", havingValue = "true")
+    public ReportOutbox reportOutbox() {
+        return this.retryServiceFactory.reportOutbox();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StackTraceRenderer stackTraceRenderer() {
+        return this.retryServiceFactory.stackTraceRenderer();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ErrorDetailsDeduplicator errorDetailsDeduplicator() {
+        return this.retryServiceFactory.errorDetailsDeduplicator();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public FailureLogLimiter failureLogLimiter() {
+        return this.retryServiceFactory.failureLogLimiter();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryMetrics retryMetrics() {
+        return RetryMetrics.NONE;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryBudgetService retryBudgetService() {
+        return this.retryServiceFactory.retryBudgetService();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.budget", name = "enabled", havingValue = "true")
+    public ExternalTaskRetryBudgetAspect externalTaskRetryBudgetAspect() {
+        return new ExternalTaskRetryBudgetAspect(this.retryBudgetService());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerService circuitBreakerService() {
+        return this.retryServiceFactory.circuitBreakerService();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.circuit-breaker", name = "enabled", havingValue = "true")
+    public ExternalTaskCircuitBreakerAspect externalTaskCircuitBreakerAspect() {
+        return new ExternalTaskCircuitBreakerAspect(this.circuitBreakerService(), this.failureHandlingService(), this.exceptionClassifier());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.local-retry", name = "enabled", havingValue = "true")
+    public ExternalTaskLocalRetryAspect externalTaskLocalRetryAspect() {
+        return new ExternalTaskLocalRetryAspect(this.externalTaskRetryAspectProperties.getLocalRetry(), this.exceptionClassifier());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.lock-watchdog", name = "enabled", havingValue = "true")
+    public LockWatchdog lockWatchdog() {
+        return new LockWatchdog(this.externalTaskRetryAspectProperties.getLockWatchdog());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.lock-watchdog", name = "enabled", havingValue = "true")
+    public ExternalTaskLockWatchdogAspect externalTaskLockWatchdogAspect() {
+        return new ExternalTaskLockWatchdogAspect(this.lockWatchdog());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.timing", name = "enabled", havingValue = "true")
+    public ExecutionRecorder executionRecorder() {
+        return new LatencyHistogramRecorder(this.externalTaskRetryAspectProperties.getTiming());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExecutionTimer executionTimer() {
+        return this.externalTaskRetryAspectProperties.getTiming().isEnabled()
+                ? new ExecutionTimer(this.executionRecorder())
+                : ExecutionTimer.NONE;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.timing", name = "enabled", havingValue = "true")
+    public ExternalTaskTimingAspect externalTaskTimingAspect() {
+        return new ExternalTaskTimingAspect(this.executionTimer());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.timeout", name = "enabled", havingValue = "true")
+    public ExecutionTimeoutService executionTimeoutService() {
+        return new ExecutionTimeoutService(this.externalTaskRetryAspectProperties.getTimeout());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.timeout", name = "enabled", havingValue = "true")
+    public ExternalTaskTimeoutAspect externalTaskTimeoutAspect() {
+        return new ExternalTaskTimeoutAspect(this.executionTimeoutService());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.validation", name = "enabled", havingValue = "true")
+    public RetryConfigValidator retryConfigValidator(final ResourceLoader resourceLoader) {
+        return new RetryConfigValidator(
+                this.externalTaskRetryAspectProperties,
+                this.propertyService(),
+                ResourcePatternUtils.getResourcePatternResolver(resourceLoader)
+        );
     }
 
 }
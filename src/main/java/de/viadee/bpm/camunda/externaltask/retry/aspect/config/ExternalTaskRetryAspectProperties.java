@@ -31,8 +31,18 @@
  */
 package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
 
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.JitterType;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorDetailsDeduplicator;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionTimeoutService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportingExecutor;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryBudgetService;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 
@@ -42,8 +52,29 @@ public class ExternalTaskRetryAspectProperties {
     //@formatter:off
     private String defaultBehavior    = "R3/PT5M";
     private String identifier         = "RETRY_CONFIG";
+    private int    scheduleCacheSize  = 256;
     //@formatter:on
 
+    private Map<String, String> defaultBehaviorByTopic                = new HashMap<>();
+    private Map<String, String> defaultBehaviorByProcessDefinitionKey = new HashMap<>();
+    private Map<String, String> defaultBehaviorByTenant               = new HashMap<>();
+
+    private final Validation validation = new Validation();
+    private final Jitter jitter = new Jitter();
+    private final Budget budget = new Budget();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final LocalRetry localRetry = new LocalRetry();
+    private final AsyncReporting asyncReporting = new AsyncReporting();
+    private final Outbox outbox = new Outbox();
+    private final ErrorDetails errorDetails = new ErrorDetails();
+    private final LogLimit logLimit = new LogLimit();
+    private final Metrics metrics = new Metrics();
+    private final Timing timing = new Timing();
+    private final LockWatchdog lockWatchdog = new LockWatchdog();
+    private final Timeout timeout = new Timeout();
+    private final Weaving weaving = new Weaving();
+    private final Classification classification = new Classification();
+
 
     public String getDefaultBehavior() {
         return this.defaultBehavior;
@@ -63,4 +94,898 @@ public class ExternalTaskRetryAspectProperties {
         this.identifier = identifier;
     }
 
+    public int getScheduleCacheSize() {
+        return this.scheduleCacheSize;
+    }
+
+    public void setScheduleCacheSize(final int scheduleCacheSize) {
+        if (scheduleCacheSize < 1) return;
+        this.scheduleCacheSize = scheduleCacheSize;
+    }
+
+    public Map<String, String> getDefaultBehaviorByTopic() {
+        return this.defaultBehaviorByTopic;
+    }
+
+    public void setDefaultBehaviorByTopic(final Map<String, String> defaultBehaviorByTopic) {
+        if (Objects.isNull(defaultBehaviorByTopic)) return;
+        this.defaultBehaviorByTopic = defaultBehaviorByTopic;
+    }
+
+    public Map<String, String> getDefaultBehaviorByProcessDefinitionKey() {
+        return this.defaultBehaviorByProcessDefinitionKey;
+    }
+
+    public void setDefaultBehaviorByProcessDefinitionKey(final Map<String, String> defaultBehaviorByProcessDefinitionKey) {
+        if (Objects.isNull(defaultBehaviorByProcessDefinitionKey)) return;
+        this.defaultBehaviorByProcessDefinitionKey = defaultBehaviorByProcessDefinitionKey;
+    }
+
+    public Map<String, String> getDefaultBehaviorByTenant() {
+        return this.defaultBehaviorByTenant;
+    }
+
+    public void setDefaultBehaviorByTenant(final Map<String, String> defaultBehaviorByTenant) {
+        if (Objects.isNull(defaultBehaviorByTenant)) return;
+        this.defaultBehaviorByTenant = defaultBehaviorByTenant;
+    }
+
+    public Validation getValidation() {
+        return this.validation;
+    }
+
+    public Jitter getJitter() {
+        return this.jitter;
+    }
+
+    public Budget getBudget() {
+        return this.budget;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    public LocalRetry getLocalRetry() {
+        return this.localRetry;
+    }
+
+    public AsyncReporting getAsyncReporting() {
+        return this.asyncReporting;
+    }
+
+    public Outbox getOutbox() {
+        return this.outbox;
+    }
+
+    public ErrorDetails getErrorDetails() {
+        return this.errorDetails;
+    }
+
+    public LogLimit getLogLimit() {
+        return this.logLimit;
+    }
+
+    public Metrics getMetrics() {
+        return this.metrics;
+    }
+
+    public Timing getTiming() {
+        return this.timing;
+    }
+
+    public LockWatchdog getLockWatchdog() {
+        return this.lockWatchdog;
+    }
+
+    public Timeout getTimeout() {
+        return this.timeout;
+    }
+
+    public Weaving getWeaving() {
+        return this.weaving;
+    }
+
+    public Classification getClassification() {
+        return this.classification;
+    }
+
+
+    public static class Validation {
+
+        //@formatter:off
+        private boolean      enabled    = false;
+        private boolean      failFast   = false;
+        private List<String> locations  = List.of("classpath*:**/*.bpmn");
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isFailFast() {
+            return this.failFast;
+        }
+
+        public void setFailFast(final boolean failFast) {
+            this.failFast = failFast;
+        }
+
+        public List<String> getLocations() {
+            return this.locations;
+        }
+
+        public void setLocations(final List<String> locations) {
+            if (Objects.isNull(locations) || locations.isEmpty()) return;
+            this.locations = locations;
+        }
+    }
+
+
+    public static class Jitter {
+
+        //@formatter:off
+        private JitterType type   = JitterType.NONE;
+        private double     bound  = 1.0;
+        //@formatter:on
+
+        public JitterType getType() {
+            return this.type;
+        }
+
+        public void setType(final JitterType type) {
+            if (Objects.isNull(type)) return;
+            this.type = type;
+        }
+
+        public double getBound() {
+            return this.bound;
+        }
+
+        public void setBound(final double bound) {
+            if (bound <= 0.0 || bound > 1.0) return;
+            this.bound = bound;
+        }
+    }
+
+
+    public static class Budget {
+
+        //@formatter:off
+        private boolean                     enabled            = false;
+        private RetryBudgetService.Key      key                = RetryBudgetService.Key.TOPIC;
+        private Duration                    window             = Duration.ofMinutes(1);
+        private int                         buckets            = 10;
+        private double                      ratio              = 0.1;
+        private int                         minimumRetries     = 10;
+        private RetryBudgetService.Strategy strategy           = RetryBudgetService.Strategy.STRETCH;
+        private double                      intervalMultiplier = 4.0;
+        private int                         retryConsumption   = 2;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public RetryBudgetService.Key getKey() {
+            return this.key;
+        }
+
+        public void setKey(final RetryBudgetService.Key key) {
+            if (Objects.isNull(key)) return;
+            this.key = key;
+        }
+
+        public Duration getWindow() {
+            return this.window;
+        }
+
+        public void setWindow(final Duration window) {
+            if (Objects.isNull(window) || window.toMillis() < 1) return;
+            this.window = window;
+        }
+
+        public int getBuckets() {
+            return this.buckets;
+        }
+
+        public void setBuckets(final int buckets) {
+            if (buckets < 1) return;
+            this.buckets = buckets;
+        }
+
+        public double getRatio() {
+            return this.ratio;
+        }
+
+        public void setRatio(final double ratio) {
+            if (ratio < 0.0) return;
+            this.ratio = ratio;
+        }
+
+        public int getMinimumRetries() {
+            return this.minimumRetries;
+        }
+
+        public void setMinimumRetries(final int minimumRetries) {
+            if (minimumRetries < 0) return;
+            this.minimumRetries = minimumRetries;
+        }
+
+        public RetryBudgetService.Strategy getStrategy() {
+            return this.strategy;
+        }
+
+        public void setStrategy(final RetryBudgetService.Strategy strategy) {
+            if (Objects.isNull(strategy)) return;
+            this.strategy = strategy;
+        }
+
+        public double getIntervalMultiplier() {
+            return this.intervalMultiplier;
+        }
+
+        public void setIntervalMultiplier(final double intervalMultiplier) {
+            if (intervalMultiplier < 1.0) return;
+            this.intervalMultiplier = intervalMultiplier;
+        }
+
+        public int getRetryConsumption() {
+            return this.retryConsumption;
+        }
+
+        public void setRetryConsumption(final int retryConsumption) {
+            if (retryConsumption < 1) return;
+            this.retryConsumption = retryConsumption;
+        }
+    }
+
+
+    public static class CircuitBreaker {
+
+        //@formatter:off
+        private boolean  enabled           = false;
+        private int      failureThreshold  = 5;
+        private Duration openDuration      = Duration.ofMinutes(5);
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureThreshold() {
+            return this.failureThreshold;
+        }
+
+        public void setFailureThreshold(final int failureThreshold) {
+            if (failureThreshold < 1) return;
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return this.openDuration;
+        }
+
+        public void setOpenDuration(final Duration openDuration) {
+            if (Objects.isNull(openDuration) || openDuration.toMillis() < 1) return;
+            this.openDuration = openDuration;
+        }
+    }
+
+
+    public static class LocalRetry {
+
+        //@formatter:off
+        private boolean  enabled               = false;
+        private int      maxAttempts           = 3;
+        private Duration backoff               = Duration.ofMillis(200);
+        private double   multiplier            = 2.0;
+        private Duration maximumBackoff        = Duration.ofSeconds(5);
+        private Duration minimumLockRemaining  = Duration.ofSeconds(10);
+        private Duration lockExtension         = Duration.ZERO;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxAttempts() {
+            return this.maxAttempts;
+        }
+
+        public void setMaxAttempts(final int maxAttempts) {
+            if (maxAttempts < 1) return; // at least the handler's invocation itself
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getBackoff() {
+            return this.backoff;
+        }
+
+        public void setBackoff(final Duration backoff) {
+            if (Objects.isNull(backoff) || backoff.isNegative()) return;
+            this.backoff = backoff;
+        }
+
+        public double getMultiplier() {
+            return this.multiplier;
+        }
+
+        public void setMultiplier(final double multiplier) {
+            if (multiplier < 1.0) return;
+            this.multiplier = multiplier;
+        }
+
+        public Duration getMaximumBackoff() {
+            return this.maximumBackoff;
+        }
+
+        public void setMaximumBackoff(final Duration maximumBackoff) {
+            if (Objects.isNull(maximumBackoff) || maximumBackoff.isNegative()) return;
+            this.maximumBackoff = maximumBackoff;
+        }
+
+        public Duration getMinimumLockRemaining() {
+            return this.minimumLockRemaining;
+        }
+
+        public void setMinimumLockRemaining(final Duration minimumLockRemaining) {
+            if (Objects.isNull(minimumLockRemaining) || minimumLockRemaining.isNegative()) return;
+            this.minimumLockRemaining = minimumLockRemaining;
+        }
+
+        public Duration getLockExtension() {
+            return this.lockExtension;
+        }
+
+        public void setLockExtension(final Duration lockExtension) {
+            if (Objects.isNull(lockExtension) || lockExtension.isNegative()) return;
+            this.lockExtension = lockExtension;
+        }
+    }
+
+
+    public static class AsyncReporting {
+
+        //@formatter:off
+        private boolean                          enabled          = false;
+        private int                              lanes            = 2;
+        private int                              queueCapacity    = 1000;
+        private ReportingExecutor.OverflowPolicy overflowPolicy   = ReportingExecutor.OverflowPolicy.BLOCK;
+        private Duration                         shutdownTimeout  = Duration.ofSeconds(30);
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLanes() {
+            return this.lanes;
+        }
+
+        public void setLanes(final int lanes) {
+            if (lanes < 1) return;
+            this.lanes = lanes;
+        }
+
+        public int getQueueCapacity() {
+            return this.queueCapacity;
+        }
+
+        public void setQueueCapacity(final int queueCapacity) {
+            if (queueCapacity < 1) return;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public ReportingExecutor.OverflowPolicy getOverflowPolicy() {
+            return this.overflowPolicy;
+        }
+
+        public void setOverflowPolicy(final ReportingExecutor.OverflowPolicy overflowPolicy) {
+            if (Objects.isNull(overflowPolicy)) return;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Duration getShutdownTimeout() {
+            return this.shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(final Duration shutdownTimeout) {
+            if (Objects.isNull(shutdownTimeout) || shutdownTimeout.isNegative()) return;
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
+
+
+    public static class Outbox {
+
+        //@formatter:off
+        private boolean  enabled                = false;
+        private String   file                   = "external-task-outbox.dat";
+        private DataSize capacity               = DataSize.ofMegabytes(16);
+        private Duration replayInterval         = Duration.ofSeconds(5);
+        private Duration maximumReplayInterval  = Duration.ofMinutes(5);
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return this.file;
+        }
+
+        public void setFile(final String file) {
+            if (Objects.isNull(file) || file.trim().isEmpty()) return;
+            this.file = file;
+        }
+
+        public DataSize getCapacity() {
+            return this.capacity;
+        }
+
+        public void setCapacity(final DataSize capacity) {
+            if (Objects.isNull(capacity) || capacity.toBytes() < 1024 || capacity.toBytes() > Integer.MAX_VALUE) return;
+            this.capacity = capacity;
+        }
+
+        public Duration getReplayInterval() {
+            return this.replayInterval;
+        }
+
+        public void setReplayInterval(final Duration replayInterval) {
+            if (Objects.isNull(replayInterval) || replayInterval.toMillis() < 1) return;
+            this.replayInterval = replayInterval;
+        }
+
+        public Duration getMaximumReplayInterval() {
+            return this.maximumReplayInterval;
+        }
+
+        public void setMaximumReplayInterval(final Duration maximumReplayInterval) {
+            if (Objects.isNull(maximumReplayInterval) || maximumReplayInterval.toMillis() < 1) return;
+            this.maximumReplayInterval = maximumReplayInterval;
+        }
+    }
+
+
+    public static class ErrorDetails {
+
+        //@formatter:off
+        private boolean      compact            = false;
+        private int          maxFrames          = 30;
+        private int          maxCauses          = 5;
+        private int          maxLength          = 16 * 1024;
+        private List<String> frameworkPackages  = List.of(
+                "org.springframework.aop.",
+                "org.springframework.cglib.",
+                "org.aspectj.",
+                "java.lang.reflect.",
+                "jdk.internal.reflect.",
+                "sun.reflect.");
+        //@formatter:on
+
+        private final Deduplication deduplication = new Deduplication();
+
+        public boolean isCompact() {
+            return this.compact;
+        }
+
+        public void setCompact(final boolean compact) {
+            this.compact = compact;
+        }
+
+        public int getMaxFrames() {
+            return this.maxFrames;
+        }
+
+        public void setMaxFrames(final int maxFrames) {
+            if (maxFrames < 1) return;
+            this.maxFrames = maxFrames;
+        }
+
+        public int getMaxCauses() {
+            return this.maxCauses;
+        }
+
+        public void setMaxCauses(final int maxCauses) {
+            if (maxCauses < 0) return;
+            this.maxCauses = maxCauses;
+        }
+
+        public int getMaxLength() {
+            return this.maxLength;
+        }
+
+        public void setMaxLength(final int maxLength) {
+            if (maxLength < 256) return;
+            this.maxLength = maxLength;
+        }
+
+        public List<String> getFrameworkPackages() {
+            return this.frameworkPackages;
+        }
+
+        public void setFrameworkPackages(final List<String> frameworkPackages) {
+            if (Objects.isNull(frameworkPackages)) return;
+            this.frameworkPackages = frameworkPackages;
+        }
+
+        public Deduplication getDeduplication() {
+            return this.deduplication;
+        }
+
+
+        public static class Deduplication {
+
+            //@formatter:off
+            private boolean                          enabled    = false;
+            private ErrorDetailsDeduplicator.Policy  policy     = ErrorDetailsDeduplicator.Policy.REFERENCE;
+            private Duration                         window     = Duration.ofDays(1);
+            private int                              frames     = 5;
+            private int                              cacheSize  = 10_000;
+            //@formatter:on
+
+            private Map<String, ErrorDetailsDeduplicator.Policy> policyByException = new HashMap<>();
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public void setEnabled(final boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public ErrorDetailsDeduplicator.Policy getPolicy() {
+                return this.policy;
+            }
+
+            public void setPolicy(final ErrorDetailsDeduplicator.Policy policy) {
+                if (Objects.isNull(policy)) return;
+                this.policy = policy;
+            }
+
+            public Duration getWindow() {
+                return this.window;
+            }
+
+            public void setWindow(final Duration window) {
+                if (Objects.isNull(window) || window.isNegative()) return;
+                this.window = window;
+            }
+
+            public int getFrames() {
+                return this.frames;
+            }
+
+            public void setFrames(final int frames) {
+                if (frames < 1) return;
+                this.frames = frames;
+            }
+
+            public int getCacheSize() {
+                return this.cacheSize;
+            }
+
+            public void setCacheSize(final int cacheSize) {
+                if (cacheSize < 1) return;
+                this.cacheSize = cacheSize;
+            }
+
+            public Map<String, ErrorDetailsDeduplicator.Policy> getPolicyByException() {
+                return this.policyByException;
+            }
+
+            public void setPolicyByException(final Map<String, ErrorDetailsDeduplicator.Policy> policyByException) {
+                if (Objects.isNull(policyByException)) return;
+                this.policyByException = policyByException;
+            }
+        }
+    }
+
+
+    public static class LogLimit {
+
+        //@formatter:off
+        private boolean  enabled     = false;
+        private int      permits     = 10;
+        private Duration window      = Duration.ofMinutes(1);
+        private int      sampleRate  = 100;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPermits() {
+            return this.permits;
+        }
+
+        public void setPermits(final int permits) {
+            if (permits < 1) return;
+            this.permits = permits;
+        }
+
+        public Duration getWindow() {
+            return this.window;
+        }
+
+        public void setWindow(final Duration window) {
+            if (Objects.isNull(window) || window.toMillis() < 1) return;
+            this.window = window;
+        }
+
+        public int getSampleRate() {
+            return this.sampleRate;
+        }
+
+        public void setSampleRate(final int sampleRate) {
+            if (sampleRate < 0) return;
+            this.sampleRate = sampleRate;
+        }
+    }
+
+
+    public static class Metrics {
+
+        //@formatter:off
+        private boolean  enabled       = true;
+        private int      maxTagValues  = 100;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTagValues() {
+            return this.maxTagValues;
+        }
+
+        public void setMaxTagValues(final int maxTagValues) {
+            if (maxTagValues < 1) return;
+            this.maxTagValues = maxTagValues;
+        }
+    }
+
+
+    public static class Timing {
+
+        //@formatter:off
+        private boolean  enabled                = false;
+        private Duration highestTrackableValue  = Duration.ofHours(1);
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getHighestTrackableValue() {
+            return this.highestTrackableValue;
+        }
+
+        public void setHighestTrackableValue(final Duration highestTrackableValue) {
+            if (Objects.isNull(highestTrackableValue) || highestTrackableValue.toMillis() < 1) return;
+            this.highestTrackableValue = highestTrackableValue;
+        }
+    }
+
+
+    public static class LockWatchdog {
+
+        //@formatter:off
+        private boolean  enabled                = false;
+        private Duration safetyMargin           = Duration.ofSeconds(10);
+        private Duration extension              = Duration.ofMinutes(1);
+        private Duration maximumTotalExtension  = Duration.ofMinutes(30);
+        private int      poolSize               = 1;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getSafetyMargin() {
+            return this.safetyMargin;
+        }
+
+        public void setSafetyMargin(final Duration safetyMargin) {
+            if (Objects.isNull(safetyMargin) || safetyMargin.isNegative()) return;
+            this.safetyMargin = safetyMargin;
+        }
+
+        public Duration getExtension() {
+            return this.extension;
+        }
+
+        public void setExtension(final Duration extension) {
+            if (Objects.isNull(extension) || extension.toMillis() < 1) return;
+            this.extension = extension;
+        }
+
+        public Duration getMaximumTotalExtension() {
+            return this.maximumTotalExtension;
+        }
+
+        public void setMaximumTotalExtension(final Duration maximumTotalExtension) {
+            if (Objects.isNull(maximumTotalExtension) || maximumTotalExtension.isNegative()) return;
+            this.maximumTotalExtension = maximumTotalExtension;
+        }
+
+        public int getPoolSize() {
+            return this.poolSize;
+        }
+
+        public void setPoolSize(final int poolSize) {
+            if (poolSize < 1) return;
+            this.poolSize = poolSize;
+        }
+    }
+
+
+    public static class Timeout {
+
+        //@formatter:off
+        private boolean                       enabled           = false;
+        private Duration                      defaultTimeout    = Duration.ZERO;
+        private Map<String, Duration>         timeoutByTopic    = new HashMap<>();
+        private Map<String, Duration>         timeoutByHandler  = new HashMap<>();
+        private String                        retryBehavior     = null;
+        private ExecutionTimeoutService.Mode  mode              = ExecutionTimeoutService.Mode.INTERRUPT;
+        private int                           poolSize          = 16;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getDefaultTimeout() {
+            return this.defaultTimeout;
+        }
+
+        public void setDefaultTimeout(final Duration defaultTimeout) {
+            if (Objects.isNull(defaultTimeout) || defaultTimeout.isNegative()) return;
+            this.defaultTimeout = defaultTimeout;
+        }
+
+        public Map<String, Duration> getTimeoutByTopic() {
+            return this.timeoutByTopic;
+        }
+
+        public void setTimeoutByTopic(final Map<String, Duration> timeoutByTopic) {
+            if (Objects.isNull(timeoutByTopic)) return;
+            this.timeoutByTopic = timeoutByTopic;
+        }
+
+        public Map<String, Duration> getTimeoutByHandler() {
+            return this.timeoutByHandler;
+        }
+
+        public void setTimeoutByHandler(final Map<String, Duration> timeoutByHandler) {
+            if (Objects.isNull(timeoutByHandler)) return;
+            this.timeoutByHandler = timeoutByHandler;
+        }
+
+        public String getRetryBehavior() {
+            return this.retryBehavior;
+        }
+
+        public void setRetryBehavior(final String retryBehavior) {
+            this.retryBehavior = retryBehavior;
+        }
+
+        public ExecutionTimeoutService.Mode getMode() {
+            return this.mode;
+        }
+
+        public void setMode(final ExecutionTimeoutService.Mode mode) {
+            if (Objects.isNull(mode)) return;
+            this.mode = mode;
+        }
+
+        public int getPoolSize() {
+            return this.poolSize;
+        }
+
+        public void setPoolSize(final int poolSize) {
+            if (poolSize < 1) return;
+            this.poolSize = poolSize;
+        }
+    }
+
+
+    public static class Weaving {
+
+        //@formatter:off
+        private boolean  enabled  = false;
+        //@formatter:on
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+
+    public static class Classification {
+
+        //@formatter:off
+        private Map<String, String>  behaviorByExceptionType  = new HashMap<>();
+        private boolean              unwrapCauses             = true;
+        private int                  maximumCauseDepth        = 10;
+        //@formatter:on
+
+        public Map<String, String> getBehaviorByExceptionType() {
+            return this.behaviorByExceptionType;
+        }
+
+        public void setBehaviorByExceptionType(final Map<String, String> behaviorByExceptionType) {
+            if (Objects.isNull(behaviorByExceptionType)) return;
+            this.behaviorByExceptionType = behaviorByExceptionType;
+        }
+
+        public boolean isUnwrapCauses() {
+            return this.unwrapCauses;
+        }
+
+        public void setUnwrapCauses(final boolean unwrapCauses) {
+            this.unwrapCauses = unwrapCauses;
+        }
+
+        public int getMaximumCauseDepth() {
+            return this.maximumCauseDepth;
+        }
+
+        public void setMaximumCauseDepth(final int maximumCauseDepth) {
+            if (maximumCauseDepth < 0) return;
+            this.maximumCauseDepth = maximumCauseDepth;
+        }
+    }
+
 }
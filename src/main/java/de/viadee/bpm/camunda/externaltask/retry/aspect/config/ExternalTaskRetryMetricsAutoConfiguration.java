@@ -0,0 +1,86 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.metrics.MicrometerExecutionRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.metrics.MicrometerRetryMetrics;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes micrometer-metrics, if micrometer is on the classpath and a {@link MeterRegistry} is available,
+ * eg. by spring-boot-actuator. Otherwise {@link RetryMetrics#NONE} is used and executions, if timing is enabled,
+ * are only recorded into in-memory histograms.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration"
+})
+@AutoConfigureBefore(ExternalTaskRetryAspectAutoConfiguration.class)
+@EnableConfigurationProperties(ExternalTaskRetryAspectProperties.class)
+public class ExternalTaskRetryMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RetryMetrics retryMetrics(final MeterRegistry meterRegistry, final ExternalTaskRetryAspectProperties externalTaskRetryAspectProperties) {
+        return new MicrometerRetryMetrics(meterRegistry, externalTaskRetryAspectProperties.getMetrics());
+    }
+
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.timing", name = "enabled", havingValue = "true")
+    static class TimingMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnBean(MeterRegistry.class)
+        @ConditionalOnProperty(prefix = "de.viadee.bpm.camunda.external-task.retry-config.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+        public ExecutionRecorder executionRecorder(final MeterRegistry meterRegistry, final ExternalTaskRetryAspectProperties externalTaskRetryAspectProperties) {
+            return new MicrometerExecutionRecorder(meterRegistry, externalTaskRetryAspectProperties.getMetrics());
+        }
+    }
+
+}
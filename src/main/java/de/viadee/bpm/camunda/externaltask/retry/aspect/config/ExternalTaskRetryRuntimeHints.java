@@ -0,0 +1,86 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskCircuitBreakerAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskLocalRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskLockWatchdogAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryBudgetAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskTimeoutAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskTimingAspect;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Hints for native-images: the properties are bound by reflection, advice- and pointcut-methods of the aspects are
+ * looked up and invoked by reflection, and the pointcut-expressions refer to the types of the external-task-client.
+ * Proxies of the handlers are generated by spring during the AOT-processing.
+ */
+public class ExternalTaskRetryRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final List<Class<?>> ASPECTS = List.of(
+            ExternalTaskRetryAspect.class,
+            ExternalTaskRetryBudgetAspect.class,
+            ExternalTaskCircuitBreakerAspect.class,
+            ExternalTaskLocalRetryAspect.class,
+            ExternalTaskLockWatchdogAspect.class,
+            ExternalTaskTimingAspect.class,
+            ExternalTaskTimeoutAspect.class
+    );
+
+    static final List<Class<?>> POINTCUT_TYPES = List.of(
+            ExternalTaskHandler.class,
+            ExternalTask.class,
+            ExternalTaskService.class
+    );
+
+    @Override
+    public void registerHints(final RuntimeHints hints, final ClassLoader classLoader) {
+        // including all nested groups, like 'timeout' or 'lock-watchdog'
+        BindableRuntimeHintsRegistrar.forTypes(ExternalTaskRetryAspectProperties.class).registerHints(hints, classLoader);
+
+        ASPECTS.forEach(aspect -> hints.reflection().registerType(aspect,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INTROSPECT_DECLARED_METHODS, MemberCategory.INVOKE_PUBLIC_METHODS));
+
+        POINTCUT_TYPES.forEach(type -> hints.reflection().registerType(type,
+                MemberCategory.INTROSPECT_PUBLIC_METHODS));
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExceptionClassifier;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Scans bpmn-models on startup for retry-configs (extension-properties named by
+ * {@link ExternalTaskRetryAspectProperties#getIdentifier()}), compiles them in advance
+ * and reports the invalid ones, which would otherwise silently fall back to the default.
+ */
+public class RetryConfigValidator implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryConfigValidator.class);
+
+    private static final String CAMUNDA_NAMESPACE = "http://camunda.org/schema/1.0/bpmn";
+    private static final String BPMN_NAMESPACE = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+
+    private final ExternalTaskRetryAspectProperties properties;
+    private final PropertyService propertyService;
+    private final ResourcePatternResolver resourcePatternResolver;
+
+    public RetryConfigValidator(final ExternalTaskRetryAspectProperties properties,
+                                final PropertyService propertyService,
+                                final ResourcePatternResolver resourcePatternResolver) {
+        this.properties = properties;
+        this.propertyService = propertyService;
+        this.resourcePatternResolver = resourcePatternResolver;
+    }
+
+
+    @Override
+    public void afterPropertiesSet() {
+        final List<String> invalidRetryConfigs = this.validate();
+        if (invalidRetryConfigs.isEmpty()) {
+            return;
+        }
+
+        invalidRetryConfigs.forEach(LOGGER::warn);
+        if (this.properties.getValidation().isFailFast()) {
+            throw new IllegalStateException(invalidRetryConfigs.size() + " invalid retry-config(s) found: " + invalidRetryConfigs);
+        }
+    }
+
+
+    /**
+     * @return a description of every invalid retry-config, empty if all are valid
+     */
+    public List<String> validate() {
+        final List<String> invalidRetryConfigs = new ArrayList<>();
+
+        if (!this.propertyService.isValid(this.properties.getDefaultBehavior())) {
+            invalidRetryConfigs.add("Invalid default-behavior '" + this.properties.getDefaultBehavior() + "', using fallback");
+        }
+        final String timeoutRetryBehavior = this.properties.getTimeout().getRetryBehavior();
+        if (Objects.nonNull(timeoutRetryBehavior) && !timeoutRetryBehavior.trim().isEmpty() && !this.propertyService.isValid(timeoutRetryBehavior)) {
+            invalidRetryConfigs.add("Invalid timeout retry-behavior '" + timeoutRetryBehavior + "', using the task's retry-behavior");
+        }
+        this.validateDefaults("topic", this.properties.getDefaultBehaviorByTopic(), invalidRetryConfigs);
+        this.validateDefaults("process-definition-key", this.properties.getDefaultBehaviorByProcessDefinitionKey(), invalidRetryConfigs);
+        this.validateDefaults("tenant", this.properties.getDefaultBehaviorByTenant(), invalidRetryConfigs);
+        this.properties.getClassification().getBehaviorByExceptionType().forEach((exceptionType, behavior) -> {
+            if (!ExceptionClassifier.isValid(behavior)) {
+                invalidRetryConfigs.add("Invalid behavior '" + behavior + "' for exception-type '" + exceptionType + "', ignored");
+            }
+        });
+
+        int compiled = 0;
+        for (final String location : this.properties.getValidation().getLocations()) {
+            for (final Resource resource : this.findResources(location)) {
+                compiled += this.validate(resource, invalidRetryConfigs);
+            }
+        }
+
+        LOGGER.info("Pre-compiled {} retry-config(s) from bpmn-models, {} invalid", compiled, invalidRetryConfigs.size());
+        return invalidRetryConfigs;
+    }
+
+
+    private void validateDefaults(final String level, final Map<String, String> defaultBehaviors, final List<String> invalidRetryConfigs) {
+        defaultBehaviors.forEach((key, retryProperty) -> {
+            if (!this.propertyService.isValid(retryProperty)) {
+                invalidRetryConfigs.add("Invalid default-behavior '" + retryProperty + "' for " + level + " '" + key + "', using default");
+            }
+        });
+    }
+
+    private int validate(final Resource resource, final List<String> invalidRetryConfigs) {
+        final XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+
+        int compiled = 0;
+        try (InputStream inputStream = resource.getInputStream()) {
+            final XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+            String activityId = null;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if (BPMN_NAMESPACE.equals(reader.getNamespaceURI()) && Objects.nonNull(reader.getAttributeValue(null, "id"))) {
+                    // the innermost bpmn-element, eg. the service-task owning the extension-property
+                    activityId = reader.getAttributeValue(null, "id");
+
+                } else if (CAMUNDA_NAMESPACE.equals(reader.getNamespaceURI())
+                        && "property".equals(reader.getLocalName())
+                        && this.properties.getIdentifier().equals(reader.getAttributeValue(null, "name"))) {
+
+                    final String retryProperty = reader.getAttributeValue(null, "value");
+                    if (Objects.isNull(retryProperty) || retryProperty.trim().isEmpty()) {
+                        continue; // default-behavior
+                    }
+                    if (!this.propertyService.isValid(retryProperty)) {
+                        invalidRetryConfigs.add("Invalid retry-config '" + retryProperty + "' in "
+                                + resource.getDescription() + ", element '" + activityId + "', using default");
+                    }
+                    this.propertyService.retrySchedule(retryProperty); // pre-warm
+                    compiled++;
+                }
+            }
+            reader.close();
+
+        } catch (final IOException | XMLStreamException exception) {
+            invalidRetryConfigs.add("Unreadable bpmn-model " + resource.getDescription() + ": " + exception.getMessage());
+        }
+        return compiled;
+    }
+
+    private Resource[] findResources(final String location) {
+        try {
+            return this.resourcePatternResolver.getResources(location);
+        } catch (final IOException exception) {
+            LOGGER.warn("Could not resolve bpmn-models from '{}': {}", location, exception.getMessage());
+            return new Resource[0];
+        }
+    }
+
+}
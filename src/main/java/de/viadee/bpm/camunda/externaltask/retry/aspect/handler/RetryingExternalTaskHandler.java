@@ -0,0 +1,187 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.handler;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorHandlingService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureLogLimiter;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportOutbox;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ReportingExecutor;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryMetrics;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryServiceFactory;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Decorates an {@link ExternalTaskHandler} with the retry-behaviour of the aspect, without any spring-context,
+ * eg. for plain {@code ExternalTaskClient}s:
+ * <pre>
+ * RetryingExternalTaskHandler handler = RetryingExternalTaskHandler.builder(new MyHandler())
+ *         .defaultBehavior("R5/PT1M")
+ *         .build();
+ * </pre>
+ * Any exception thrown by the delegate is handled and not rethrown. Further handlers can share the same
+ * configuration by {@link #decorate(ExternalTaskHandler)}. Closing any of them flushes pending reports and
+ * releases the resources shared by all of them.
+ * <p>
+ * Only the handling of failures and bpmn-errors applies, i.e. retry-behaviors, classification, retry-budget,
+ * async-reporting, outbox, error-details, log-limit and metrics. Options applied around the execution, i.e. the
+ * circuit-breaker, local retries, lock-watchdog, timing and timeout, require the aspects and thereby spring.
+ * The services are created by the {@link RetryServiceFactory}, as by the auto-configuration.
+ */
+public class RetryingExternalTaskHandler implements ExternalTaskHandler, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingExternalTaskHandler.class);
+
+    private final ExternalTaskHandler delegate;
+    private final ErrorHandlingService errorHandlingService;
+    private final List<AutoCloseable> resources;
+
+    public RetryingExternalTaskHandler(final ExternalTaskHandler delegate, final ErrorHandlingService errorHandlingService) {
+        this(delegate, errorHandlingService, List.of());
+    }
+
+    private RetryingExternalTaskHandler(final ExternalTaskHandler delegate,
+                                        final ErrorHandlingService errorHandlingService,
+                                        final List<AutoCloseable> resources) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.errorHandlingService = errorHandlingService;
+        this.resources = resources;
+    }
+
+
+    public static Builder builder(final ExternalTaskHandler delegate) {
+        return new Builder(delegate);
+    }
+
+
+    @Override
+    public void execute(final ExternalTask externalTask, final ExternalTaskService externalTaskService) {
+        try {
+            this.delegate.execute(externalTask, externalTaskService);
+        } catch (final Exception exception) {
+            this.errorHandlingService.handleError(this.delegate.getClass(), exception, externalTask, externalTaskService);
+        }
+    }
+
+    /**
+     * @return another handler decorated the same way, sharing all resources with this one
+     */
+    public RetryingExternalTaskHandler decorate(final ExternalTaskHandler delegate) {
+        return new RetryingExternalTaskHandler(delegate, this.errorHandlingService, this.resources);
+    }
+
+    public ExternalTaskHandler getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public void close() {
+        for (final AutoCloseable resource : this.resources) {
+            try {
+                resource.close();
+            } catch (final Exception exception) {
+                LOGGER.warn("Could not close {}", resource.getClass().getSimpleName(), exception);
+            }
+        }
+    }
+
+
+    public static class Builder {
+
+        private final ExternalTaskHandler delegate;
+        private final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        private RetryMetrics retryMetrics = RetryMetrics.NONE;
+
+        private Builder(final ExternalTaskHandler delegate) {
+            this.delegate = delegate;
+        }
+
+
+        /**
+         * Customizes the properties owned by this builder, as known from the spring-configuration
+         * {@code de.viadee.bpm.camunda.external-task.retry-config}
+         */
+        public Builder properties(final Consumer<ExternalTaskRetryAspectProperties> customizer) {
+            Objects.requireNonNull(customizer, "customizer").accept(this.properties);
+            return this;
+        }
+
+        public Builder defaultBehavior(final String defaultBehavior) {
+            this.properties.setDefaultBehavior(defaultBehavior);
+            return this;
+        }
+
+        public Builder identifier(final String identifier) {
+            this.properties.setIdentifier(identifier);
+            return this;
+        }
+
+        public Builder retryMetrics(final RetryMetrics retryMetrics) {
+            this.retryMetrics = Objects.requireNonNull(retryMetrics, "retryMetrics");
+            return this;
+        }
+
+        public RetryingExternalTaskHandler build() {
+            final RetryServiceFactory retryServiceFactory = new RetryServiceFactory(this.properties);
+            final ReportOutbox reportOutbox = retryServiceFactory.reportOutbox();
+            final ReportingExecutor reportingExecutor = retryServiceFactory.reportingExecutor(reportOutbox);
+            final FailureLogLimiter failureLogLimiter = retryServiceFactory.failureLogLimiter();
+
+            final FailureService failureService = FailureService.builder(retryServiceFactory.propertyService(retryServiceFactory.exceptionClassifier()))
+                    .retryBudgetService(retryServiceFactory.retryBudgetService())
+                    .circuitBreakerService(retryServiceFactory.circuitBreakerService())
+                    .reportingExecutor(reportingExecutor)
+                    .stackTraceRenderer(retryServiceFactory.stackTraceRenderer())
+                    .errorDetailsDeduplicator(retryServiceFactory.errorDetailsDeduplicator())
+                    .failureLogLimiter(failureLogLimiter)
+                    .retryMetrics(this.retryMetrics)
+                    .build();
+            final BusinessErrorService businessErrorService = new BusinessErrorService(reportingExecutor, this.retryMetrics);
+
+            // flush pending reports into the outbox before closing it
+            return new RetryingExternalTaskHandler(this.delegate,
+                    new ErrorHandlingService(businessErrorService, failureService),
+                    List.of(reportingExecutor, reportOutbox, failureLogLimiter));
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.metrics;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.camunda.bpm.client.task.ExternalTask;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records handler-executions as micrometer-timer with percentile-histogram, tagged with topic, handler-class
+ * and outcome. Topics and handlers are bounded like in {@link MicrometerRetryMetrics}.
+ */
+public class MicrometerExecutionRecorder implements ExecutionRecorder {
+
+    public static final String EXECUTION = "external.task.execution";
+
+    private final MeterRegistry meterRegistry;
+    private final MicrometerRetryMetrics.TagValues topics;
+    private final MicrometerRetryMetrics.TagValues handlers;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+    public MicrometerExecutionRecorder(final MeterRegistry meterRegistry, final ExternalTaskRetryAspectProperties.Metrics properties) {
+        this.meterRegistry = meterRegistry;
+        this.topics = new MicrometerRetryMetrics.TagValues(properties.getMaxTagValues());
+        this.handlers = new MicrometerRetryMetrics.TagValues(properties.getMaxTagValues());
+    }
+
+
+    @Override
+    public void record(final Class<?> origin, final ExternalTask externalTask, final Outcome outcome, final long durationNanos) {
+        final String topicName = Objects.isNull(externalTask) ? null : externalTask.getTopicName();
+        final String topic = this.topics.of(Objects.isNull(topicName) ? MicrometerRetryMetrics.UNKNOWN : topicName);
+        final String handler = this.handlers.of(origin.getName());
+
+        final Timer[] timersByOutcome = this.timers
+                .computeIfAbsent(topic, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(handler, key -> this.registerTimers(topic, handler));
+        timersByOutcome[outcome.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    private Timer[] registerTimers(final String topic, final String handler) {
+        final Outcome[] outcomes = Outcome.values();
+        final Timer[] timersByOutcome = new Timer[outcomes.length];
+        for (final Outcome outcome : outcomes) {
+            timersByOutcome[outcome.ordinal()] = Timer.builder(EXECUTION)
+                    .description("Executions of external-task-handlers")
+                    .tags("topic", topic, "handler", handler, "outcome", outcome.name().toLowerCase().replace('_', '-'))
+                    .publishPercentileHistogram()
+                    .register(this.meterRegistry);
+        }
+        return timersByOutcome;
+    }
+
+}
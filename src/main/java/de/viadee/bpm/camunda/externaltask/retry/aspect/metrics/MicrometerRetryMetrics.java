@@ -0,0 +1,238 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.metrics;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.camunda.bpm.client.task.ExternalTask;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes retry-decisions and business-errors as micrometer-meters, tagged with topic, handler-class and
+ * exception-type. Meters are registered once per combination and cached afterwards. To bound the number of
+ * time-series, each tag accepts a limited number of distinct values, any further value is tagged as {@code other}.
+ */
+public class MicrometerRetryMetrics implements RetryMetrics {
+
+    public static final String FAILURES = "external.task.failures";
+    public static final String INCIDENTS = "external.task.incidents";
+    public static final String BUSINESS_ERRORS = "external.task.business.errors";
+    public static final String RETRY_INTERVAL = "external.task.retry.interval";
+    public static final String REMAINING_RETRIES = "external.task.retries.remaining";
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final TagValues topics;
+    private final TagValues handlers;
+    private final TagValues exceptions;
+
+    private final ConcurrentHashMap<Key, FailureMeters> failureMeters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, Counter> businessErrorCounters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, AtomicInteger> remainingRetries = new ConcurrentHashMap<>();
+
+    public MicrometerRetryMetrics(final MeterRegistry meterRegistry, final ExternalTaskRetryAspectProperties.Metrics properties) {
+        this.meterRegistry = meterRegistry;
+        this.topics = new TagValues(properties.getMaxTagValues());
+        this.handlers = new TagValues(properties.getMaxTagValues());
+        this.exceptions = new TagValues(properties.getMaxTagValues());
+    }
+
+
+    @Override
+    public void recordFailure(final Class<?> origin,
+                              final ExternalTask externalTask,
+                              final Throwable throwable,
+                              final RetryDecision retryDecision,
+                              final boolean instantIncident) {
+
+        final Key key = this.key(origin, externalTask, throwable);
+        final FailureMeters meters = this.failureMeters.computeIfAbsent(key, this::registerFailureMeters);
+
+        meters.failures.increment();
+        if (instantIncident) {
+            meters.instantIncidents.increment();
+        } else if (retryDecision.isIncident()) {
+            meters.exhaustedIncidents.increment();
+        } else {
+            meters.retryInterval.record(retryDecision.getNextRetryInterval());
+        }
+        this.remainingRetries.computeIfAbsent(key.withoutException(), this::registerRemainingRetries)
+                .set(retryDecision.getRemainingRetries());
+    }
+
+    @Override
+    public void recordBusinessError(final Class<?> origin, final ExternalTask externalTask, final Throwable businessError) {
+        this.businessErrorCounters.computeIfAbsent(this.key(origin, externalTask, businessError), key -> Counter.builder(BUSINESS_ERRORS)
+                .description("Business-errors reported as bpmn-error")
+                .tags(key.tags())
+                .register(this.meterRegistry)
+        ).increment();
+    }
+
+
+    private Key key(final Class<?> origin, final ExternalTask externalTask, final Throwable throwable) {
+        final String topicName = Objects.isNull(externalTask) ? null : externalTask.getTopicName();
+        return new Key(
+                this.topics.of(Objects.isNull(topicName) ? UNKNOWN : topicName),
+                this.handlers.of(origin.getName()),
+                this.exceptions.of(throwable.getClass().getName()));
+    }
+
+    private FailureMeters registerFailureMeters(final Key key) {
+        final Tags tags = key.tags();
+        return new FailureMeters(
+                Counter.builder(FAILURES)
+                        .description("Failures of external-task-handlers")
+                        .tags(tags)
+                        .register(this.meterRegistry),
+                Counter.builder(INCIDENTS)
+                        .description("Incidents created by failures")
+                        .tags(tags.and("reason", "instant"))
+                        .register(this.meterRegistry),
+                Counter.builder(INCIDENTS)
+                        .description("Incidents created by failures")
+                        .tags(tags.and("reason", "retries-exhausted"))
+                        .register(this.meterRegistry),
+                DistributionSummary.builder(RETRY_INTERVAL)
+                        .description("Intervals until the next retry")
+                        .baseUnit(BaseUnits.MILLISECONDS)
+                        .tags(tags)
+                        .register(this.meterRegistry));
+    }
+
+    private AtomicInteger registerRemainingRetries(final Key key) {
+        final AtomicInteger value = new AtomicInteger();
+        Gauge.builder(REMAINING_RETRIES, value, AtomicInteger::get)
+                .description("Remaining retries after the latest failure")
+                .tags(key.tags())
+                .register(this.meterRegistry);
+        return value;
+    }
+
+
+    private static final class FailureMeters {
+
+        private final Counter failures;
+        private final Counter instantIncidents;
+        private final Counter exhaustedIncidents;
+        private final DistributionSummary retryInterval;
+
+        private FailureMeters(final Counter failures,
+                              final Counter instantIncidents,
+                              final Counter exhaustedIncidents,
+                              final DistributionSummary retryInterval) {
+            this.failures = failures;
+            this.instantIncidents = instantIncidents;
+            this.exhaustedIncidents = exhaustedIncidents;
+            this.retryInterval = retryInterval;
+        }
+    }
+
+
+    private static final class Key {
+
+        private final String topic;
+        private final String handler;
+        private final String exception;
+
+        private Key(final String topic, final String handler, final String exception) {
+            this.topic = topic;
+            this.handler = handler;
+            this.exception = exception;
+        }
+
+        private Key withoutException() {
+            return new Key(this.topic, this.handler, null);
+        }
+
+        private Tags tags() {
+            final Tags tags = Tags.of("topic", this.topic, "handler", this.handler);
+            return Objects.isNull(this.exception) ? tags : tags.and("exception", this.exception);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) other;
+            return this.topic.equals(key.topic) && this.handler.equals(key.handler) && Objects.equals(this.exception, key.exception);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.topic, this.handler, this.exception);
+        }
+    }
+
+
+    /**
+     * Accepts up to a maximum of distinct tag-values, any further value is replaced by {@link #OTHER}.
+     */
+    static final class TagValues {
+
+        private final int maximum;
+        private final ConcurrentHashMap<String, String> accepted = new ConcurrentHashMap<>();
+
+        TagValues(final int maximum) {
+            this.maximum = maximum;
+        }
+
+        String of(final String value) {
+            final String known = this.accepted.get(value);
+            if (known != null) {
+                return known;
+            }
+            if (this.accepted.size() >= this.maximum) {
+                return OTHER;
+            }
+            final String concurrent = this.accepted.putIfAbsent(value, value);
+            return concurrent != null ? concurrent : value;
+        }
+    }
+
+}
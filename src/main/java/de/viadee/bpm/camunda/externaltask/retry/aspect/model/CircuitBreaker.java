@@ -0,0 +1,111 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free circuit-breaker, counting consecutive failures. Reaching the threshold opens
+ * the circuit for the given duration, afterwards a single probe is let through (half-open):
+ * a success closes the circuit again, a failure re-opens it. A probe ending neither way
+ * is released, so that the next call is let through as probe.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final long CLOSED = 0L;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong(CLOSED);
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+
+    /**
+     * @return true, if the circuit is closed or this call is the half-open probe
+     */
+    public boolean tryAcquire(final long now) {
+        final long until = this.openUntil.get();
+        if (until == CLOSED) {
+            return true;
+        }
+        return now >= until && this.probing.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        this.consecutiveFailures.set(0);
+        if (this.openUntil.get() != CLOSED) {
+            this.openUntil.set(CLOSED);
+            this.probing.set(false);
+        }
+    }
+
+    /**
+     * Ends a probe without closing or re-opening the circuit, no-op unless probing.
+     */
+    public void release() {
+        this.probing.set(false);
+    }
+
+    /**
+     * @return true, if the circuit is open after this failure
+     */
+    public boolean onFailure(final long now, final int failureThreshold, final long openMillis) {
+        if (this.probing.get()) {
+            // failed probe, open again
+            this.openUntil.set(now + openMillis);
+            this.probing.set(false);
+            return true;
+        }
+        if (this.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            this.openUntil.compareAndSet(CLOSED, now + openMillis);
+        }
+        return this.openUntil.get() != CLOSED;
+    }
+
+    public State getState(final long now) {
+        final long until = this.openUntil.get();
+        if (until == CLOSED) {
+            return State.CLOSED;
+        }
+        return now < until ? State.OPEN : State.HALF_OPEN;
+    }
+
+    public int getConsecutiveFailures() {
+        return this.consecutiveFailures.get();
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.Objects;
+
+/**
+ * Immutable outcome for an exception-type: a bpmn-error with its error-code, an instant incident,
+ * or retries according to a specific retry-config. {@link #DEFAULT} retries according to the task's retry-config.
+ */
+public final class ExceptionClassification {
+
+    public enum Outcome {
+        RETRY,
+        BUSINESS_ERROR,
+        INSTANT_INCIDENT
+    }
+
+    public static final ExceptionClassification DEFAULT = new ExceptionClassification(Outcome.RETRY, null, null);
+
+    private static final ExceptionClassification INSTANT_INCIDENT = new ExceptionClassification(Outcome.INSTANT_INCIDENT, null, null);
+    private static final ExceptionClassification BUSINESS_ERROR = new ExceptionClassification(Outcome.BUSINESS_ERROR, null, null);
+
+    private final Outcome outcome;
+    private final String errorCode;
+    private final RetrySchedule retrySchedule;
+
+    private ExceptionClassification(final Outcome outcome, final String errorCode, final RetrySchedule retrySchedule) {
+        this.outcome = outcome;
+        this.errorCode = errorCode;
+        this.retrySchedule = retrySchedule;
+    }
+
+
+    public static ExceptionClassification businessError(final String errorCode) {
+        return new ExceptionClassification(Outcome.BUSINESS_ERROR, Objects.requireNonNull(errorCode, "errorCode"), null);
+    }
+
+    /**
+     * @return a bpmn-error raised by the handler itself, which carries its own error-code
+     */
+    public static ExceptionClassification businessError() {
+        return BUSINESS_ERROR;
+    }
+
+    public static ExceptionClassification instantIncident() {
+        return INSTANT_INCIDENT;
+    }
+
+    public static ExceptionClassification retry(final RetrySchedule retrySchedule) {
+        return new ExceptionClassification(Outcome.RETRY, null, Objects.requireNonNull(retrySchedule, "retrySchedule"));
+    }
+
+
+    public Outcome getOutcome() {
+        return this.outcome;
+    }
+
+    /**
+     * @return the error-code of a bpmn-error, otherwise null
+     */
+    public String getErrorCode() {
+        return this.errorCode;
+    }
+
+    /**
+     * @return the specific retry-schedule, null if the task's retry-config applies
+     */
+    public RetrySchedule getRetrySchedule() {
+        return this.retrySchedule;
+    }
+
+    /**
+     * @return true, if not retried at all, ie. a bpmn-error or an instant incident
+     */
+    public boolean isIntended() {
+        return this.outcome != Outcome.RETRY;
+    }
+
+    @Override
+    public String toString() {
+        return "ExceptionClassification{" + this.outcome
+                + (Objects.nonNull(this.errorCode) ? ", errorCode=" + this.errorCode : "")
+                + (Objects.nonNull(this.retrySchedule) ? ", " + this.retrySchedule : "") + "}";
+    }
+
+}
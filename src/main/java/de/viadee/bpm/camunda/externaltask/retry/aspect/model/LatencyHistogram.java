@@ -0,0 +1,130 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in microseconds, bucketed like HdrHistogram: linear below 64, above that
+ * each power of two is split into 32 buckets, so any value is recorded with a relative error below 3.2%.
+ * Values above the highest trackable value are recorded as the highest trackable value, only the maximum is exact.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * @param highestTrackableValue in microseconds, eg. one hour for the longest expected lock-duration
+     */
+    public LatencyHistogram(final long highestTrackableValue) {
+        this.highestTrackableValue = Math.max(SUB_BUCKET_COUNT, highestTrackableValue);
+        this.counts = new AtomicLongArray(index(this.highestTrackableValue) + 1);
+    }
+
+
+    public void record(final long value) {
+        final long trackable = Math.max(0L, value);
+        this.counts.incrementAndGet(index(Math.min(trackable, this.highestTrackableValue)));
+        this.totalCount.increment();
+        this.totalValue.add(trackable);
+        if (trackable > this.maximum.get()) {
+            this.maximum.accumulateAndGet(trackable, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return this.totalCount.sum();
+    }
+
+    public long getMaximum() {
+        return this.maximum.get();
+    }
+
+    public double getMean() {
+        final long count = this.totalCount.sum();
+        return count == 0 ? 0.0 : (double) this.totalValue.sum() / count;
+    }
+
+    /**
+     * @param percentile eg. 99.0 for the 99th percentile
+     * @return the highest value equivalent to the bucket containing the percentile, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long count = 0L;
+        for (int index = 0; index < this.counts.length(); index++) {
+            count += this.counts.get(index);
+        }
+        if (count == 0) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+        long seen = 0L;
+        for (int index = 0; index < this.counts.length(); index++) {
+            seen += this.counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(index), this.getMaximum());
+            }
+        }
+        return this.getMaximum();
+    }
+
+
+    static int index(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // eg. 64..127 -> shift 1, 32 buckets of width 2
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        final long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+}
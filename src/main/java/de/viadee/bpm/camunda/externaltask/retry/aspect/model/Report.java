@@ -0,0 +1,331 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A failure or bpmn-error to be sent to the engine. Once serialized, eg. to be replayed after a restart,
+ * the external-task itself is gone and the report is sent by the task's id. Variables are serialized by a typed
+ * encoding of the engine's primitive types (string, boolean, short, integer, long, double, date and bytes), never
+ * by java-serialization, so reading a report can not instantiate arbitrary classes.
+ */
+public final class Report {
+
+    public enum Type {
+        FAILURE, BPMN_ERROR
+    }
+
+    private static final long UNKNOWN_LOCK_EXPIRATION = Long.MAX_VALUE;
+
+    //@formatter:off
+    private static final byte NULL_VARIABLE     = 0;
+    private static final byte STRING_VARIABLE   = 1;
+    private static final byte BOOLEAN_VARIABLE  = 2;
+    private static final byte SHORT_VARIABLE    = 3;
+    private static final byte INTEGER_VARIABLE  = 4;
+    private static final byte LONG_VARIABLE     = 5;
+    private static final byte DOUBLE_VARIABLE   = 6;
+    private static final byte DATE_VARIABLE     = 7;
+    private static final byte BYTES_VARIABLE    = 8;
+    //@formatter:on
+
+    private final Type type;
+    private final ExternalTask externalTask;
+    private final String externalTaskId;
+    private final long lockExpiration;
+    private final String errorMessage;
+    private final String errorDetails;
+    private final int retries;
+    private final long retryTimeout;
+    private final String errorCode;
+    private final Map<String, Object> variables;
+
+    private Report(final Type type, final ExternalTask externalTask, final String externalTaskId, final long lockExpiration,
+                   final String errorMessage, final String errorDetails, final int retries, final long retryTimeout,
+                   final String errorCode, final Map<String, Object> variables) {
+        this.type = type;
+        this.externalTask = externalTask;
+        this.externalTaskId = externalTaskId;
+        this.lockExpiration = lockExpiration;
+        this.errorMessage = errorMessage;
+        this.errorDetails = errorDetails;
+        this.retries = retries;
+        this.retryTimeout = retryTimeout;
+        this.errorCode = errorCode;
+        this.variables = variables;
+    }
+
+
+    public static Report failure(final ExternalTask externalTask, final String errorMessage, final String errorDetails,
+                                 final int retries, final long retryTimeout) {
+        return new Report(Type.FAILURE, externalTask, externalTask.getId(), lockExpiration(externalTask),
+                errorMessage, errorDetails, retries, retryTimeout, null, null);
+    }
+
+    public static Report bpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage,
+                                   final Map<String, Object> variables) {
+        return new Report(Type.BPMN_ERROR, externalTask, externalTask.getId(), lockExpiration(externalTask),
+                errorMessage, null, 0, 0L, errorCode, variables);
+    }
+
+
+    public void sendTo(final ExternalTaskService externalTaskService) {
+        if (this.type == Type.FAILURE) {
+            if (Objects.nonNull(this.externalTask)) {
+                externalTaskService.handleFailure(this.externalTask, this.errorMessage, this.errorDetails, this.retries, this.retryTimeout);
+            } else {
+                externalTaskService.handleFailure(this.externalTaskId, this.errorMessage, this.errorDetails, this.retries, this.retryTimeout);
+            }
+
+        } else if (Objects.nonNull(this.externalTask)) {
+            if (Objects.isNull(this.variables)) {
+                // don't send variables, if null
+                externalTaskService.handleBpmnError(this.externalTask, this.errorCode, this.errorMessage);
+            } else {
+                externalTaskService.handleBpmnError(this.externalTask, this.errorCode, this.errorMessage, this.variables);
+            }
+
+        } else {
+            externalTaskService.handleBpmnError(this.externalTaskId, this.errorCode, this.errorMessage,
+                    Objects.isNull(this.variables) ? Collections.emptyMap() : this.variables);
+        }
+    }
+
+    /**
+     * @return true, if the lock of the task has already expired, so the engine won't accept this report anymore
+     */
+    public boolean isStale(final long now) {
+        return now >= this.lockExpiration;
+    }
+
+
+    /**
+     * @throws NotSerializableException if any variable is not of a primitive type
+     */
+    public byte[] serialize() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(this.type.ordinal());
+            writeString(out, this.externalTaskId);
+            out.writeLong(this.lockExpiration);
+            writeString(out, this.errorMessage);
+            writeString(out, this.errorDetails);
+            out.writeInt(this.retries);
+            out.writeLong(this.retryTimeout);
+            writeString(out, this.errorCode);
+            out.writeBoolean(Objects.nonNull(this.variables));
+            if (Objects.nonNull(this.variables)) {
+                out.writeInt(this.variables.size());
+                for (final Map.Entry<String, Object> variable : this.variables.entrySet()) {
+                    writeString(out, variable.getKey());
+                    writeVariable(out, variable.getKey(), variable.getValue());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Report deserialize(final byte[] serialized) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            final Type type = Type.values()[in.readByte()];
+            final String externalTaskId = readString(in);
+            final long lockExpiration = in.readLong();
+            final String errorMessage = readString(in);
+            final String errorDetails = readString(in);
+            final int retries = in.readInt();
+            final long retryTimeout = in.readLong();
+            final String errorCode = readString(in);
+            Map<String, Object> variables = null;
+            if (in.readBoolean()) {
+                final int size = in.readInt();
+                if (size < 0 || size > in.available()) {
+                    throw new IOException("Corrupt report, " + size + " variables");
+                }
+                variables = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    variables.put(readString(in), readVariable(in));
+                }
+            }
+            return new Report(type, null, externalTaskId, lockExpiration,
+                    errorMessage, errorDetails, retries, retryTimeout, errorCode, variables);
+
+        } catch (final RuntimeException exception) {
+            throw new IOException("Corrupt report", exception);
+        }
+    }
+
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public String getExternalTaskId() {
+        return this.externalTaskId;
+    }
+
+    public long getLockExpiration() {
+        return this.lockExpiration;
+    }
+
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    public String getErrorDetails() {
+        return this.errorDetails;
+    }
+
+    public int getRetries() {
+        return this.retries;
+    }
+
+    public long getRetryTimeout() {
+        return this.retryTimeout;
+    }
+
+    public String getErrorCode() {
+        return this.errorCode;
+    }
+
+    public Map<String, Object> getVariables() {
+        return this.variables;
+    }
+
+    @Override
+    public String toString() {
+        return "Report{" + this.type + ", externalTaskId=" + this.externalTaskId + "}";
+    }
+
+
+    private static long lockExpiration(final ExternalTask externalTask) {
+        return Objects.isNull(externalTask.getLockExpirationTime())
+                ? UNKNOWN_LOCK_EXPIRATION
+                : externalTask.getLockExpirationTime().getTime();
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = readBytes(in);
+        return Objects.isNull(bytes) ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Corrupt report, length " + length + " exceeds the remaining " + in.available() + " bytes");
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeVariable(final DataOutputStream out, final String name, final Object value) throws IOException {
+        if (Objects.isNull(value)) {
+            out.writeByte(NULL_VARIABLE);
+        } else if (value instanceof final String string) {
+            out.writeByte(STRING_VARIABLE);
+            writeString(out, string);
+        } else if (value instanceof final Boolean bool) {
+            out.writeByte(BOOLEAN_VARIABLE);
+            out.writeBoolean(bool);
+        } else if (value instanceof final Short number) {
+            out.writeByte(SHORT_VARIABLE);
+            out.writeShort(number);
+        } else if (value instanceof final Integer number) {
+            out.writeByte(INTEGER_VARIABLE);
+            out.writeInt(number);
+        } else if (value instanceof final Long number) {
+            out.writeByte(LONG_VARIABLE);
+            out.writeLong(number);
+        } else if (value instanceof final Double number) {
+            out.writeByte(DOUBLE_VARIABLE);
+            out.writeDouble(number);
+        } else if (value instanceof final Date date) {
+            out.writeByte(DATE_VARIABLE);
+            out.writeLong(date.getTime());
+        } else if (value instanceof final byte[] bytes) {
+            out.writeByte(BYTES_VARIABLE);
+            writeBytes(out, bytes);
+        } else {
+            throw new NotSerializableException("Variable " + name + " of type " + value.getClass().getName() + " is not primitive");
+        }
+    }
+
+    private static Object readVariable(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        return switch (type) {
+            case NULL_VARIABLE -> null;
+            case STRING_VARIABLE -> readString(in);
+            case BOOLEAN_VARIABLE -> in.readBoolean();
+            case SHORT_VARIABLE -> in.readShort();
+            case INTEGER_VARIABLE -> in.readInt();
+            case LONG_VARIABLE -> in.readLong();
+            case DOUBLE_VARIABLE -> in.readDouble();
+            case DATE_VARIABLE -> new Date(in.readLong());
+            case BYTES_VARIABLE -> readBytes(in);
+            default -> throw new IOException("Corrupt report, unknown variable type " + type);
+        };
+    }
+
+}
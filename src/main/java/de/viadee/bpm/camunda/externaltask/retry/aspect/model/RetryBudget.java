@@ -0,0 +1,102 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding window of retries and successes, split into buckets. Counters are striped
+ * {@link LongAdder}s, a bucket is reset lock-free by the first thread entering a new period.
+ * Counts are therefore approximate at bucket-boundaries, which is fine for a budget.
+ */
+public final class RetryBudget {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final AtomicLongArray periods;
+    private final LongAdder[] retries;
+    private final LongAdder[] successes;
+
+    public RetryBudget(final long windowMillis, final int buckets) {
+        this.buckets = Math.max(1, buckets);
+        this.bucketMillis = Math.max(1L, windowMillis / this.buckets);
+        this.periods = new AtomicLongArray(this.buckets);
+        this.retries = new LongAdder[this.buckets];
+        this.successes = new LongAdder[this.buckets];
+        for (int i = 0; i < this.buckets; i++) {
+            this.retries[i] = new LongAdder();
+            this.successes[i] = new LongAdder();
+        }
+    }
+
+
+    public void recordRetry(final long now) {
+        this.retries[this.bucket(now)].increment();
+    }
+
+    public void recordSuccess(final long now) {
+        this.successes[this.bucket(now)].increment();
+    }
+
+    /**
+     * @param ratio   allowed retries per success, eg. 0.1 for one retry per ten successes
+     * @param minimum retries always allowed within the window, regardless of successes
+     * @return true, if the retries within the window exceed the budget
+     */
+    public boolean isExhausted(final long now, final double ratio, final long minimum) {
+        final long period = now / this.bucketMillis;
+        long retriesInWindow = 0L;
+        long successesInWindow = 0L;
+        for (int i = 0; i < this.buckets; i++) {
+            if (period - this.periods.get(i) < this.buckets) {
+                retriesInWindow += this.retries[i].sum();
+                successesInWindow += this.successes[i].sum();
+            }
+        }
+        return retriesInWindow > Math.max(minimum, (long) (ratio * successesInWindow));
+    }
+
+
+    private int bucket(final long now) {
+        final long period = now / this.bucketMillis;
+        final int bucket = (int) (period % this.buckets);
+        final long current = this.periods.get(bucket);
+        if (current != period && this.periods.compareAndSet(bucket, current, period)) {
+            // first one in a new period clears what is left from the previous round
+            this.retries[bucket].reset();
+            this.successes[bucket].reset();
+        }
+        return bucket;
+    }
+
+}
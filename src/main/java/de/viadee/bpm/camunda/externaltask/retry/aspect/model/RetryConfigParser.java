@@ -0,0 +1,319 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass parser for retry-configs, replacing the regular expressions and
+ * {@link java.time.Duration#parse(CharSequence)}. Two forms are accepted:
+ * <ul>
+ *     <li>time-cycle, eg. {@code R3/PT5M}: three retries, five minutes each</li>
+ *     <li>exponential backoff, eg. {@code R10/PT1S*2/PT10M}: ten retries, starting after one second,
+ *         doubling the interval each time up to ten minutes</li>
+ *     <li>list, eg. {@code PT5M,PT10M,PT1H}: one retry per interval</li>
+ * </ul>
+ * Each form may end with a jitter in percent, eg. {@code R3/PT5M~20%}.
+ * Spaces are ignored and designators are case-insensitive. Syntactically valid intervals
+ * which cannot be converted into a duration, eg. {@code P1Y} or {@code P1DT}, result in
+ * the given fallback-interval. A syntactically invalid config results in {@code null}.
+ */
+public final class RetryConfigParser {
+
+    private static final int END = -1;
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60L;
+    private static final long SECONDS_PER_HOUR = 60 * 60L;
+    private static final long SECONDS_PER_MINUTE = 60L;
+
+    private final String text;
+    private final long fallbackInterval;
+    private int position;
+    private boolean syntaxError;
+    private boolean numberOverflow;
+
+    private RetryConfigParser(final String text, final long fallbackInterval) {
+        this.text = text;
+        this.fallbackInterval = fallbackInterval;
+    }
+
+
+    public static RetrySchedule parse(final String retryProperty, final long fallbackInterval) {
+        for (int i = 0; i < retryProperty.length(); i++) {
+            if (retryProperty.charAt(i) > 0x7F) {
+                // non-ascii characters might be upper-cased into designators, eg. the long s (U+017F) -> 'S'
+                return new RetryConfigParser(retryProperty.replace(" ", "").toUpperCase(), fallbackInterval).parse();
+            }
+        }
+        return new RetryConfigParser(retryProperty, fallbackInterval).parse();
+    }
+
+
+    private RetrySchedule parse() {
+        final int first = this.peek();
+        if (first == 'R') {
+            return this.parseCycle();
+        } else if (first == 'P') {
+            return this.parseList();
+        } else {
+            return null;
+        }
+    }
+
+    private RetrySchedule parseCycle() {
+        // eg. "R5/PT10M"
+        this.position++;
+        if (!isDigit(this.peek())) {
+            return null;
+        }
+        final long times = this.readNumber();
+        if (this.numberOverflow || times > Integer.MAX_VALUE || this.peek() != '/') {
+            return null;
+        }
+        this.position++;
+        if (this.peek() != 'P') {
+            return null;
+        }
+        final long interval = this.readDuration(true);
+        if (this.syntaxError) {
+            return null;
+        }
+        if (this.peek() == '*') {
+            return this.parseBackoff((int) times, interval);
+        }
+        return this.complete(new RetrySchedule((int) times, new long[]{interval}));
+    }
+
+    private RetrySchedule parseBackoff(final int times, final long initialInterval) {
+        // eg. "R10/PT1S*2/PT10M", the multiplier might be decimal like "*1.5"
+        this.position++;
+        final double multiplier = this.readMultiplier();
+        if (this.syntaxError || multiplier < 1.0 || this.peek() != '/') {
+            return null;
+        }
+        this.position++;
+        if (this.peek() != 'P') {
+            return null;
+        }
+        final long maximumInterval = this.readDuration(true);
+        if (this.syntaxError) {
+            return null;
+        }
+        return this.complete(RetrySchedule.backoff(times, initialInterval, multiplier, maximumInterval));
+    }
+
+    private RetrySchedule parseList() {
+        // eg. "PT10M,PT1H"
+        long[] intervals = new long[8];
+        int count = 0;
+        while (true) {
+            if (this.peek() != 'P') {
+                return null;
+            }
+            final long interval = this.readDuration(false);
+            if (this.syntaxError) {
+                return null;
+            }
+            if (count == intervals.length) {
+                intervals = Arrays.copyOf(intervals, count * 2);
+            }
+            intervals[count++] = interval;
+
+            if (this.peek() != ',') {
+                return this.complete(new RetrySchedule(count, Arrays.copyOf(intervals, count)));
+            }
+            this.position++;
+        }
+    }
+
+    /**
+     * Reads an optional jitter like "~20%", which must end the config.
+     */
+    private RetrySchedule complete(final RetrySchedule retrySchedule) {
+        if (this.peek() == '~') {
+            this.position++;
+            if (!isDigit(this.peek())) {
+                return null;
+            }
+            final long jitterPercent = this.readNumber();
+            if (this.numberOverflow || jitterPercent > 100 || this.peek() != '%') {
+                return null;
+            }
+            this.position++;
+            return this.peek() == END ? retrySchedule.withJitter((int) jitterPercent) : null;
+        }
+        return this.peek() == END ? retrySchedule : null;
+    }
+
+    /**
+     * Reads a duration starting at the current 'P' and returns it in milliseconds,
+     * or the fallback-interval if it cannot be represented as exact duration.
+     */
+    private long readDuration(final boolean allowYearsAndMonths) {
+        this.position++; // 'P'
+        boolean convertible = true;
+        boolean anyComponent = false;
+        long seconds = 0L;
+
+        // date-part: [nY][nM]nD, years and months only within time-cycles and never convertible
+        int order = 0;
+        while (isDigit(this.peek())) {
+            final long value = this.readNumber();
+            final int designator = this.peek();
+            if (allowYearsAndMonths && designator == 'Y' && order < 1) {
+                order = 1;
+                convertible = false;
+            } else if (allowYearsAndMonths && designator == 'M' && order < 2) {
+                order = 2;
+                convertible = false;
+            } else if (designator == 'D' && order < 3) {
+                order = 3;
+                seconds = this.accumulate(seconds, value, SECONDS_PER_DAY);
+            } else {
+                this.syntaxError = true;
+                return 0L;
+            }
+            this.position++;
+            anyComponent = true;
+        }
+
+        // time-part: T[nH][nM][nS], a 'T' must not end the whole config
+        if (this.peek() == 'T') {
+            this.position++;
+            if (this.peek() == END) {
+                this.syntaxError = true;
+                return 0L;
+            }
+            boolean anyTimeComponent = false;
+            order = 0;
+            while (isDigit(this.peek())) {
+                final long value = this.readNumber();
+                final int designator = this.peek();
+                final long unit;
+                if (designator == 'H' && order < 1) {
+                    order = 1;
+                    unit = SECONDS_PER_HOUR;
+                } else if (designator == 'M' && order < 2) {
+                    order = 2;
+                    unit = SECONDS_PER_MINUTE;
+                } else if (designator == 'S' && order < 3) {
+                    order = 3;
+                    unit = 1L;
+                } else {
+                    this.syntaxError = true;
+                    return 0L;
+                }
+                seconds = this.accumulate(seconds, value, unit);
+                this.position++;
+                anyTimeComponent = true;
+            }
+            // a 'T' without any hours, minutes or seconds is not a duration
+            convertible &= anyTimeComponent;
+            anyComponent |= anyTimeComponent;
+        }
+
+        if (!convertible || !anyComponent || seconds < 0) {
+            return this.fallbackInterval; // better fallback than exception
+        }
+        return seconds * 1000L;
+    }
+
+    /**
+     * Adds value * unit to seconds, any overflow marks the duration as not convertible (negative).
+     */
+    private long accumulate(final long seconds, final long value, final long unit) {
+        if (seconds < 0 || this.numberOverflow || value > Long.MAX_VALUE / unit) {
+            return -1L;
+        }
+        final long product = value * unit;
+        return product > Long.MAX_VALUE - seconds ? -1L : seconds + product;
+    }
+
+    private double readMultiplier() {
+        if (!isDigit(this.peek())) {
+            this.syntaxError = true;
+            return 0.0;
+        }
+        double multiplier = this.readNumber();
+        if (this.peek() == '.') {
+            this.position++;
+            if (!isDigit(this.peek())) {
+                this.syntaxError = true;
+                return 0.0;
+            }
+            double scale = 0.1;
+            for (int current = this.peek(); isDigit(current); current = this.peek()) {
+                multiplier += (current - '0') * scale;
+                scale /= 10;
+                this.position++;
+            }
+        }
+        this.syntaxError |= this.numberOverflow;
+        return multiplier;
+    }
+
+    private long readNumber() {
+        this.numberOverflow = false;
+        long value = 0L;
+        int current = this.peek();
+        while (isDigit(current)) {
+            final int digit = current - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                this.numberOverflow = true;
+            } else {
+                value = value * 10 + digit;
+            }
+            this.position++;
+            current = this.peek();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the upper-cased character at the current position, skipping spaces.
+     */
+    private int peek() {
+        while (this.position < this.text.length()) {
+            final char current = this.text.charAt(this.position);
+            if (current != ' ') {
+                return (current >= 'a' && current <= 'z') ? current - ('a' - 'A') : current;
+            }
+            this.position++;
+        }
+        return END;
+    }
+
+    private static boolean isDigit(final int character) {
+        return character >= '0' && character <= '9';
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+/**
+ * Result of a single evaluation of the retry-behaviour: the retries left after the
+ * current failure and the time until the next retry in milliseconds.
+ */
+public final class RetryDecision {
+
+    public static final RetryDecision INSTANT_INCIDENT = new RetryDecision(0, 0L);
+
+    private final int remainingRetries;
+    private final long nextRetryInterval;
+
+    public RetryDecision(final int remainingRetries, final long nextRetryInterval) {
+        this.remainingRetries = remainingRetries;
+        this.nextRetryInterval = nextRetryInterval;
+    }
+
+    public int getRemainingRetries() {
+        return this.remainingRetries;
+    }
+
+    public long getNextRetryInterval() {
+        return this.nextRetryInterval;
+    }
+
+    public boolean isIncident() {
+        return this.remainingRetries <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryDecision{remainingRetries=" + this.remainingRetries + ", nextRetryInterval=" + this.nextRetryInterval + "}";
+    }
+
+}
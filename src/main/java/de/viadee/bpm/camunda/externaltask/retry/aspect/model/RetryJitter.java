@@ -0,0 +1,91 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Applies the configured {@link JitterType} to retry-intervals. A jitter given in the
+ * retry-config itself, eg. {@code R3/PT5M~20%}, takes precedence: the interval is
+ * randomized by up to 20 percent in both directions.
+ */
+public final class RetryJitter {
+
+    private final JitterType type;
+    private final double bound;
+
+    public RetryJitter(final JitterType type, final double bound) {
+        this.type = type;
+        this.bound = bound;
+    }
+
+
+    public long apply(final RetrySchedule retrySchedule, final long interval) {
+        if (interval <= 0L) {
+            return interval; // no retry, nothing to randomize
+        }
+
+        if (retrySchedule.hasJitter()) {
+            final double deviation = interval * retrySchedule.getJitterPercent() / 100.0;
+            return random(interval - deviation, interval + deviation);
+        }
+
+        return switch (this.type) {
+            case NONE -> interval;
+            case FULL -> random(interval * (1.0 - this.bound), interval);
+            case EQUAL -> random(interval * (1.0 - this.bound / 2.0), interval);
+            case DECORRELATED -> random(
+                    Math.min(retrySchedule.getInitialInterval(), interval),
+                    Math.min(interval * (1.0 + this.bound), interval * 3.0));
+        };
+    }
+
+
+    private static long random(final double lower, final double upper) {
+        final long origin = (long) Math.max(0.0, lower);
+        final long bound = (long) upper;
+        if (bound <= origin) {
+            return origin;
+        }
+        // thread-local, no contention between worker-threads
+        return ThreadLocalRandom.current().nextLong(origin, bound + 1);
+    }
+
+    public JitterType getType() {
+        return this.type;
+    }
+
+    public double getBound() {
+        return this.bound;
+    }
+
+}
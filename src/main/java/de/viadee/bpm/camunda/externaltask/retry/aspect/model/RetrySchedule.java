@@ -0,0 +1,164 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, pre-compiled form of a retry-config like {@code R3/PT5M} or
+ * {@code PT5M,PT10M,PT1H}: the number of retries plus the intervals in milliseconds.
+ * A time-cycle is represented by a single interval, a list by one interval per retry.
+ * An exponential backoff like {@code R10/PT1S*2/PT10M} is represented by its growing
+ * intervals up to the maximum, which is used for all further retries. Multipliers close to 1 might need more
+ * steps than pre-computed, the intervals beyond are computed on demand, still capped by the maximum. Each form may end
+ * with a jitter like {@code ~20%}, see {@link RetryJitter}.
+ */
+public final class RetrySchedule {
+
+    private static final int MAXIMUM_BACKOFF_STEPS = 1024; // 1.01 ^ 1024 is already above 26,000
+
+    private static final int NO_JITTER = -1;
+
+    private final int retries;
+    private final long[] intervals;
+    private final boolean backoff;
+    private final double multiplier;
+    private final long maximumInterval;
+    private final int jitterPercent;
+
+    public RetrySchedule(final int retries, final long[] intervals) {
+        this(retries, intervals.clone(), false, 1.0, 0L, NO_JITTER);
+    }
+
+    private RetrySchedule(final int retries, final long[] intervals, final boolean backoff,
+                          final double multiplier, final long maximumInterval, final int jitterPercent) {
+        this.retries = retries;
+        this.intervals = intervals;
+        this.backoff = backoff;
+        this.multiplier = multiplier;
+        this.maximumInterval = maximumInterval;
+        this.jitterPercent = jitterPercent;
+    }
+
+
+    /**
+     * @param retries           number of retries
+     * @param initialInterval   interval before the first retry in milliseconds
+     * @param multiplier        factor applied to the interval for each further retry, at least 1
+     * @param maximumInterval   upper limit for the interval in milliseconds
+     */
+    public static RetrySchedule backoff(final int retries, final long initialInterval, final double multiplier, final long maximumInterval) {
+        final long[] steps = new long[Math.max(1, Math.min(retries, MAXIMUM_BACKOFF_STEPS))];
+        double interval = Math.min(initialInterval, maximumInterval);
+        int length = 0;
+        steps[length++] = (long) interval;
+        // pre-compute until the maximum is reached, a multiplier of 1 or an interval of 0 won't grow at all
+        while (length < steps.length && interval < maximumInterval && interval > 0 && multiplier > 1.0) {
+            interval = Math.min(interval * multiplier, maximumInterval);
+            steps[length++] = Math.round(interval);
+        }
+        return new RetrySchedule(retries, Arrays.copyOf(steps, length), true, multiplier, maximumInterval, NO_JITTER);
+    }
+
+    /**
+     * @param jitterPercent maximum deviation of each interval in percent, eg. 20 for {@code ~20%}
+     * @return a copy of this schedule, randomizing its intervals
+     */
+    public RetrySchedule withJitter(final int jitterPercent) {
+        return new RetrySchedule(this.retries, this.intervals, this.backoff, this.multiplier, this.maximumInterval, jitterPercent);
+    }
+
+
+    public int getRetries() {
+        return this.retries;
+    }
+
+    public long nextRetryInterval(final int remainingRetries) {
+        if (remainingRetries <= 0) {
+            return 0L;
+        }
+
+        if (this.backoff) {
+            // eg: R4/PT1M*2/PT5M = PT1M,PT2M,PT4M,PT5M
+            //   eg: 3 remaining-retries -> 4 retries in total - 3 remaining = 1 (= 2nd step: PT2M)
+            // more attempts than pre-computed steps -> maximum (last step), if already reached
+            final int attempt = Math.max(0, this.retries - remainingRetries);
+            final int lastStep = this.intervals.length - 1;
+            if (attempt <= lastStep || this.intervals[lastStep] >= this.maximumInterval) {
+                return this.intervals[Math.min(attempt, lastStep)];
+            }
+            // a multiplier close to 1 needs more steps than pre-computed
+            final double interval = this.intervals[lastStep] * Math.pow(this.multiplier, attempt - lastStep);
+            return Math.min(Math.round(interval), this.maximumInterval);
+        }
+
+        //    eg: PT1M,PT2M,PT1H,PT2H,P3D = 5 retries (length = 5)
+        //          1.   2.   3.   4.  5.   retry
+        //   eg: 4 remaining-retries -> next retry: PT2M (2.)
+        // calc: 5 retries in total (length) - 4 remaining = 1 (= 2nd array-position)
+        // a time-cycle like R3/PT5M has only one interval, which is always used
+        final int length = this.intervals.length;
+        if (remainingRetries >= length) {
+            return this.intervals[0];
+        } else {
+            return this.intervals[length - remainingRetries];
+        }
+    }
+
+    public long[] getIntervals() {
+        return this.intervals.clone();
+    }
+
+    public long getInitialInterval() {
+        return this.intervals[0];
+    }
+
+    public boolean isBackoff() {
+        return this.backoff;
+    }
+
+    public boolean hasJitter() {
+        return this.jitterPercent != NO_JITTER;
+    }
+
+    public int getJitterPercent() {
+        return this.jitterPercent;
+    }
+
+    @Override
+    public String toString() {
+        return "RetrySchedule{retries=" + this.retries + ", intervals=" + Arrays.toString(this.intervals)
+                + (this.backoff ? ", backoff" : "")
+                + (this.hasJitter() ? ", jitter=" + this.jitterPercent + "%" : "") + "}";
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+import java.util.Map;
+
+/**
+ * Handed to handlers executed on a separate thread, rejects every call once the execution was abandoned after its
+ * timeout, as the task is reported as failed by the client's thread then. Calls are serialized with
+ * {@link #abandon()}, so a task is either reported by its handler or as timed-out, never both.
+ */
+final class AbandonableExternalTaskService implements ExternalTaskService {
+
+    private final ExternalTaskService delegate;
+    private boolean abandoned;
+    private boolean reported;
+
+    AbandonableExternalTaskService(final ExternalTaskService delegate) {
+        this.delegate = delegate;
+    }
+
+
+    /**
+     * @return false if the handler reported the task already, i.e. it must not be reported as timed-out anymore
+     */
+    synchronized boolean abandon() {
+        this.abandoned = true;
+        return !this.reported;
+    }
+
+    @Override
+    public synchronized void lock(final String externalTaskId, final long lockDuration) {
+        this.ensureNotAbandoned();
+        this.delegate.lock(externalTaskId, lockDuration);
+    }
+
+    @Override
+    public synchronized void lock(final ExternalTask externalTask, final long lockDuration) {
+        this.ensureNotAbandoned();
+        this.delegate.lock(externalTask, lockDuration);
+    }
+
+    @Override
+    public synchronized void unlock(final ExternalTask externalTask) {
+        this.ensureNotAbandoned();
+        this.delegate.unlock(externalTask);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void complete(final ExternalTask externalTask) {
+        this.ensureNotAbandoned();
+        this.delegate.complete(externalTask);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void setVariables(final String processInstanceId, final Map<String, Object> variables) {
+        this.ensureNotAbandoned();
+        this.delegate.setVariables(processInstanceId, variables);
+    }
+
+    @Override
+    public synchronized void setVariables(final ExternalTask externalTask, final Map<String, Object> variables) {
+        this.ensureNotAbandoned();
+        this.delegate.setVariables(externalTask, variables);
+    }
+
+    @Override
+    public synchronized void complete(final ExternalTask externalTask, final Map<String, Object> variables) {
+        this.ensureNotAbandoned();
+        this.delegate.complete(externalTask, variables);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void complete(final ExternalTask externalTask, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+        this.ensureNotAbandoned();
+        this.delegate.complete(externalTask, variables, localVariables);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void complete(final String externalTaskId, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+        this.ensureNotAbandoned();
+        this.delegate.complete(externalTaskId, variables, localVariables);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleFailure(final ExternalTask externalTask, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+        this.ensureNotAbandoned();
+        this.delegate.handleFailure(externalTask, errorMessage, errorDetails, retries, retryTimeout);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+        this.ensureNotAbandoned();
+        this.delegate.handleFailure(externalTaskId, errorMessage, errorDetails, retries, retryTimeout);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout,
+                                           final Map<String, Object> variables, final Map<String, Object> localVariables) {
+        this.ensureNotAbandoned();
+        this.delegate.handleFailure(externalTaskId, errorMessage, errorDetails, retries, retryTimeout, variables, localVariables);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleBpmnError(final ExternalTask externalTask, final String errorCode) {
+        this.ensureNotAbandoned();
+        this.delegate.handleBpmnError(externalTask, errorCode);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage) {
+        this.ensureNotAbandoned();
+        this.delegate.handleBpmnError(externalTask, errorCode, errorMessage);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+        this.ensureNotAbandoned();
+        this.delegate.handleBpmnError(externalTask, errorCode, errorMessage, variables);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void handleBpmnError(final String externalTaskId, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+        this.ensureNotAbandoned();
+        this.delegate.handleBpmnError(externalTaskId, errorCode, errorMessage, variables);
+        this.reported = true;
+    }
+
+    @Override
+    public synchronized void extendLock(final ExternalTask externalTask, final long newDuration) {
+        this.ensureNotAbandoned();
+        this.delegate.extendLock(externalTask, newDuration);
+    }
+
+    @Override
+    public synchronized void extendLock(final String externalTaskId, final long newDuration) {
+        this.ensureNotAbandoned();
+        this.delegate.extendLock(externalTaskId, newDuration);
+    }
+
+
+    private void ensureNotAbandoned() {
+        if (this.abandoned) {
+            throw new IllegalStateException("Execution abandoned after its timeout, the task is reported as failed already");
+        }
+    }
+
+}
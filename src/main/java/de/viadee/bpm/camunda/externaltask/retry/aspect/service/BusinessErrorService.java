@@ -31,44 +31,58 @@
  */
 package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
 
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.Report;
 import org.camunda.bpm.client.task.ExternalTask;
 import org.camunda.bpm.client.task.ExternalTaskService;
-import org.slf4j.LoggerFactory;
-
-import java.util.Objects;
+import org.slf4j.Logger;
 
 
 public class BusinessErrorService {
 
+    private final ReportingExecutor reportingExecutor;
+    private final RetryMetrics retryMetrics;
+
+    public BusinessErrorService() {
+        this(new ReportingExecutor(new ExternalTaskRetryAspectProperties.AsyncReporting()));
+    }
+
+    public BusinessErrorService(final ReportingExecutor reportingExecutor) {
+        this(reportingExecutor, RetryMetrics.NONE);
+    }
+
+    public BusinessErrorService(final ReportingExecutor reportingExecutor, final RetryMetrics retryMetrics) {
+        this.reportingExecutor = reportingExecutor;
+        this.retryMetrics = retryMetrics;
+    }
+
 
     public void handleError(final Class<?> origin,
                             final ExternalTask externalTask,
                             final ExternalTaskService externalTaskService,
                             final ExternalTaskBusinessError externalTaskBusinessError) {
 
-        this.logBusinessError(origin, externalTaskBusinessError);
-
-        if (Objects.isNull(externalTaskBusinessError.getVariables())) {
-            // don't send variables, if null
-            externalTaskService.handleBpmnError(externalTask,
-                                                    externalTaskBusinessError.getErrorCode(),
-                                                    externalTaskBusinessError.getErrorMessage());
-
-        } else {
-            externalTaskService.handleBpmnError(externalTask,
-                                                    externalTaskBusinessError.getErrorCode(),
-                                                    externalTaskBusinessError.getErrorMessage(),
-                                                    externalTaskBusinessError.getVariables());
-        }
+        this.logBusinessError(origin, externalTask, externalTaskBusinessError);
+        this.retryMetrics.recordBusinessError(origin, externalTask, externalTaskBusinessError);
+        this.reportingExecutor.report(externalTask, externalTaskService, () -> Report.bpmnError(
+                externalTask,
+                externalTaskBusinessError.getErrorCode(),
+                externalTaskBusinessError.getErrorMessage(),
+                externalTaskBusinessError.getVariables()));
     }
 
 
-    private void logBusinessError(final Class<?> origin, final ExternalTaskBusinessError externalTaskBusinessError) {
-        final String errorLogString = String.format("BusinessError, Code: %s, Message: %s",
-                                                        externalTaskBusinessError.getErrorCode(),
-                                                        externalTaskBusinessError.getErrorMessage());
+    private void logBusinessError(final Class<?> origin, final ExternalTask externalTask, final ExternalTaskBusinessError externalTaskBusinessError) {
+        final Logger logger = Loggers.of(origin);
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
 
-        LoggerFactory.getLogger(origin).error(errorLogString);
+        try (TaskLogContext ignored = TaskLogContext.of(externalTask)) {
+            logger.error("BusinessError, Code: {}, Message: {}",
+                    externalTaskBusinessError.getErrorCode(),
+                    externalTaskBusinessError.getErrorMessage());
+        }
     }
 }
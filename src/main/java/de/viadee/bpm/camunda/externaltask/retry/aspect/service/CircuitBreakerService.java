@@ -0,0 +1,110 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.CircuitBreaker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * One {@link CircuitBreaker} per handler-class. While open, tasks are given back to the engine
+ * and failures are reported with the open-duration as interval until the next retry.
+ */
+public class CircuitBreakerService {
+
+    private final ExternalTaskRetryAspectProperties.CircuitBreaker properties;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Class<?>, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerService(final ExternalTaskRetryAspectProperties.CircuitBreaker properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    CircuitBreakerService(final ExternalTaskRetryAspectProperties.CircuitBreaker properties, final LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+
+    public boolean isCallPermitted(final Class<?> origin) {
+        return !this.properties.isEnabled() || this.circuitBreaker(origin).tryAcquire(this.clock.getAsLong());
+    }
+
+    public void recordSuccess(final Class<?> origin) {
+        if (this.properties.isEnabled()) {
+            this.circuitBreaker(origin).onSuccess();
+        }
+    }
+
+    /**
+     * Neither success nor failure, eg. an instant incident: a half-open probe is released for the next call.
+     */
+    public void releaseProbe(final Class<?> origin) {
+        if (this.properties.isEnabled()) {
+            this.circuitBreaker(origin).release();
+        }
+    }
+
+    public void recordFailure(final Class<?> origin) {
+        if (!this.properties.isEnabled()) {
+            return;
+        }
+        final CircuitBreaker circuitBreaker = this.circuitBreaker(origin);
+        final boolean wasOpen = circuitBreaker.getState(this.clock.getAsLong()) != CircuitBreaker.State.CLOSED;
+        if (circuitBreaker.onFailure(this.clock.getAsLong(), this.properties.getFailureThreshold(), this.getOpenInterval()) && !wasOpen) {
+            Loggers.of(origin).warn("Circuit-breaker opened after {} consecutive failures, next attempt in {}ms",
+                    circuitBreaker.getConsecutiveFailures(), this.getOpenInterval());
+        }
+    }
+
+    public boolean isOpen(final Class<?> origin) {
+        return this.properties.isEnabled()
+                && this.circuitBreaker(origin).getState(this.clock.getAsLong()) != CircuitBreaker.State.CLOSED;
+    }
+
+    public CircuitBreaker.State getState(final Class<?> origin) {
+        return this.circuitBreaker(origin).getState(this.clock.getAsLong());
+    }
+
+    public long getOpenInterval() {
+        return this.properties.getOpenDuration().toMillis();
+    }
+
+
+    private CircuitBreaker circuitBreaker(final Class<?> origin) {
+        final CircuitBreaker circuitBreaker = this.circuitBreakers.get(origin);
+        return circuitBreaker != null ? circuitBreaker : this.circuitBreakers.computeIfAbsent(origin, key -> new CircuitBreaker());
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Avoids sending the same error-details again and again, if a task fails repeatedly with the same error.
+ * Errors are compared by a fingerprint of their type, top frames and cause-chain. While retries remain
+ * and the fingerprint matches the previous failure of the task, only a short reference is sent (or nothing
+ * at all, keeping the details already stored by the engine). The full details are sent on the first failure,
+ * whenever the fingerprint changes and on the last failure, which creates the incident.
+ */
+public class ErrorDetailsDeduplicator {
+
+    public enum Policy {
+        /**
+         * Always send the full details.
+         */
+        FULL,
+
+        /**
+         * Send a short reference to the previous details.
+         */
+        REFERENCE,
+
+        /**
+         * Send no details, the engine keeps the previous ones.
+         */
+        OMIT
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ExternalTaskRetryAspectProperties.ErrorDetails.Deduplication properties;
+    private final ConcurrentHashMap<String, Occurrence> occurrences = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, Policy> policies = new ConcurrentHashMap<>();
+
+    public ErrorDetailsDeduplicator(final ExternalTaskRetryAspectProperties.ErrorDetails.Deduplication properties) {
+        this.properties = properties;
+    }
+
+
+    /**
+     * @param fullDetails called only if the full details are to be sent
+     * @return the error-details to be sent, might be null
+     */
+    public String details(final ExternalTask externalTask,
+                          final Throwable throwable,
+                          final RetryDecision retryDecision,
+                          final Supplier<String> fullDetails) {
+
+        final String externalTaskId = externalTask.getId();
+        if (!this.properties.isEnabled() || Objects.isNull(externalTaskId)) {
+            return fullDetails.get();
+        }
+        if (retryDecision.isIncident()) {
+            this.occurrences.remove(externalTaskId);
+            return fullDetails.get();
+        }
+        final Policy policy = this.policy(throwable.getClass());
+        if (policy == Policy.FULL) {
+            return fullDetails.get();
+        }
+
+        final long now = System.currentTimeMillis();
+        final long fingerprint = this.fingerprint(throwable);
+        if (this.occurrences.size() >= this.properties.getCacheSize() && !this.occurrences.containsKey(externalTaskId)) {
+            this.evictOne();
+        }
+        final Occurrence previous = this.occurrences.put(externalTaskId, new Occurrence(fingerprint, now));
+        if (Objects.isNull(previous)
+                || previous.fingerprint != fingerprint
+                || now - previous.lastSeen > this.properties.getWindow().toMillis()) {
+            return fullDetails.get();
+        }
+
+        return policy == Policy.OMIT
+                ? null
+                : String.format("Same error as the previous failure (fingerprint %016x), details omitted", fingerprint);
+    }
+
+    /**
+     * Hash over the types and top frames of the exception and its causes, messages are left out
+     * because they often contain ids or timestamps.
+     */
+    public long fingerprint(final Throwable throwable) {
+        final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long hash = FNV_OFFSET;
+        for (Throwable current = throwable; current != null && seen.add(current); current = current.getCause()) {
+            hash = (hash ^ current.getClass().getName().hashCode()) * FNV_PRIME;
+            final StackTraceElement[] trace = current.getStackTrace();
+            final int frames = Math.min(trace.length, this.properties.getFrames());
+            for (int i = 0; i < frames; i++) {
+                hash = (hash ^ trace[i].hashCode()) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    public int size() {
+        return this.occurrences.size();
+    }
+
+
+    private Policy policy(final Class<?> exceptionType) {
+        final Policy policy = this.policies.get(exceptionType);
+        return policy != null ? policy : this.policies.computeIfAbsent(exceptionType, this::resolvePolicy);
+    }
+
+    private Policy resolvePolicy(final Class<?> exceptionType) {
+        // the most specific configured type wins
+        final Map<String, Policy> policyByException = this.properties.getPolicyByException();
+        for (Class<?> type = exceptionType; type != null; type = type.getSuperclass()) {
+            final Policy policy = policyByException.get(type.getName());
+            if (Objects.nonNull(policy)) {
+                return policy;
+            }
+        }
+        return this.properties.getPolicy();
+    }
+
+    private void evictOne() {
+        final Iterator<String> keys = this.occurrences.keySet().iterator();
+        if (keys.hasNext()) {
+            this.occurrences.remove(keys.next());
+        }
+    }
+
+
+    private static final class Occurrence {
+
+        private final long fingerprint;
+        private final long lastSeen;
+
+        private Occurrence(final long fingerprint, final long lastSeen) {
+            this.fingerprint = fingerprint;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+}
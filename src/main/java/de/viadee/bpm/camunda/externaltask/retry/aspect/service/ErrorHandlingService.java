@@ -0,0 +1,105 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.ExceptionClassification;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * Handles any error thrown by an external-task-handler: business-errors are reported as bpmn-errors,
+ * instant-incidents and any other exception as failure, unless classified otherwise by the {@link ExceptionClassifier}.
+ * Independent of spring, used by the aspects as well as by the
+ * {@link de.viadee.bpm.camunda.externaltask.retry.aspect.handler.RetryingExternalTaskHandler}.
+ */
+public class ErrorHandlingService {
+
+    private final BusinessErrorService businessErrorService;
+    private final FailureService failureService;
+    private final ExceptionClassifier exceptionClassifier;
+    private final ExecutionTimer executionTimer;
+
+    public ErrorHandlingService(final BusinessErrorService businessErrorService, final FailureService failureService) {
+        this(businessErrorService, failureService, ExecutionTimer.NONE);
+    }
+
+    /**
+     * @param executionTimer records the execution measured before, along with the outcome actually reported
+     */
+    public ErrorHandlingService(final BusinessErrorService businessErrorService,
+                                final FailureService failureService,
+                                final ExecutionTimer executionTimer) {
+        this.businessErrorService = businessErrorService;
+        this.failureService = failureService;
+        this.exceptionClassifier = failureService.getExceptionClassifier();
+        this.executionTimer = executionTimer;
+    }
+
+
+    public void handleError(final Class<?> origin,
+                            final Exception exception,
+                            final ExternalTask externalTask,
+                            final ExternalTaskService externalTaskService) {
+
+        // classified only once, eg. by the circuit-breaker before, the failure-service decides according to it
+        final ExceptionClassification classification = this.exceptionClassifier.takeHeld(exception);
+
+        final ExecutionRecorder.Outcome outcome;
+        if (exception instanceof ExternalTaskBusinessError) {
+            this.businessErrorService.handleError(origin, externalTask, externalTaskService, (ExternalTaskBusinessError) exception);
+            outcome = ExecutionRecorder.Outcome.BUSINESS_ERROR;
+
+        } else {
+            outcome = this.handleClassified(origin, exception, classification, externalTask, externalTaskService);
+
+        }
+        this.executionTimer.recordHeld(origin, externalTask, outcome);
+    }
+
+    private ExecutionRecorder.Outcome handleClassified(final Class<?> origin,
+                                                       final Exception exception,
+                                                       final ExceptionClassification classification,
+                                                       final ExternalTask externalTask,
+                                                       final ExternalTaskService externalTaskService) {
+
+        if (classification.getOutcome() == ExceptionClassification.Outcome.BUSINESS_ERROR) {
+            this.businessErrorService.handleError(origin, externalTask, externalTaskService,
+                    new ExternalTaskBusinessError(classification.getErrorCode(), exception.getMessage()));
+            return ExecutionRecorder.Outcome.BUSINESS_ERROR;
+        }
+        return this.failureService.handleFailure(origin, externalTask, externalTaskService, exception, classification).isIncident()
+                ? ExecutionRecorder.Outcome.INCIDENT
+                : ExecutionRecorder.Outcome.RETRY;
+    }
+
+}
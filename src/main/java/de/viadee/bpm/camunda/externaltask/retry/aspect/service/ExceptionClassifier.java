@@ -0,0 +1,226 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.ExceptionClassification;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryConfigParser;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryConfigValues;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetrySchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Registry of exception-types, which are not retried according to the task's retry-config, but lead to
+ * a bpmn-error, an instant incident or a specific retry-config. Types are registered by their fully-qualified or
+ * simple class-name and also apply to their subclasses, the most specific one wins. If unwrapping is enabled,
+ * the causes are classified as well, the outermost classified exception wins.
+ * <p>
+ * The classification of each exception-class, including its superclasses, is resolved once and cached
+ * within a {@link ClassValue}, so any further failure of the same class is a plain lookup.
+ */
+public class ExceptionClassifier {
+
+    public static final ExceptionClassifier NONE = new ExceptionClassifier(Map.of(), false, 0);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExceptionClassifier.class);
+
+    private static final String INSTANT_INCIDENT = "INSTANT_INCIDENT";
+    private static final String BPMN_ERROR_PREFIX = "BPMN_ERROR:";
+
+    private final Map<String, ExceptionClassification> classificationsByType;
+    private final boolean unwrapCauses;
+    private final int maximumCauseDepth;
+
+    private final ThreadLocal<HeldClassification> heldClassification = new ThreadLocal<>();
+
+    private final ClassValue<ExceptionClassification> resolvedClassifications = new ClassValue<>() {
+        @Override
+        protected ExceptionClassification computeValue(final Class<?> type) {
+            return ExceptionClassifier.this.resolve(type);
+        }
+    };
+
+    public ExceptionClassifier(final ExternalTaskRetryAspectProperties properties) {
+        this(parse(properties.getClassification().getBehaviorByExceptionType(), new RetryConfigValues(properties).getFallbackInterval()),
+                properties.getClassification().isUnwrapCauses(),
+                properties.getClassification().getMaximumCauseDepth());
+    }
+
+    /**
+     * @param classificationsByType classification per fully-qualified or simple class-name
+     * @param unwrapCauses          whether the causes are classified, if the exception itself is not
+     * @param maximumCauseDepth     maximum number of causes classified
+     */
+    public ExceptionClassifier(final Map<String, ExceptionClassification> classificationsByType,
+                               final boolean unwrapCauses,
+                               final int maximumCauseDepth) {
+        this.classificationsByType = Map.copyOf(classificationsByType);
+        this.unwrapCauses = unwrapCauses;
+        this.maximumCauseDepth = maximumCauseDepth;
+    }
+
+
+    /**
+     * @return the classification of the exception or its causes, {@link ExceptionClassification#DEFAULT} if none applies
+     */
+    public ExceptionClassification classify(final Throwable throwable) {
+        if (this.classificationsByType.isEmpty()) {
+            return ExceptionClassification.DEFAULT;
+        }
+
+        Throwable current = throwable;
+        for (int depth = 0; Objects.nonNull(current); depth++) {
+            final ExceptionClassification classification = this.resolvedClassifications.get(current.getClass());
+            if (classification != ExceptionClassification.DEFAULT) {
+                return classification;
+            }
+            if (!this.unwrapCauses || depth >= this.maximumCauseDepth) {
+                break;
+            }
+            current = current.getCause();
+        }
+        return ExceptionClassification.DEFAULT;
+    }
+
+    /**
+     * Classifies an exception thrown by a handler: business-errors and instant incidents raised on purpose keep
+     * precedence, any other exception is classified by the registry.
+     */
+    public ExceptionClassification classifyThrown(final Exception exception) {
+        if (exception instanceof ExternalTaskBusinessError) {
+            return ExceptionClassification.businessError();
+        }
+        if (exception instanceof InstantIncidentException) {
+            return ExceptionClassification.instantIncident();
+        }
+        return this.classify(exception);
+    }
+
+    /**
+     * Classifies an exception thrown by a handler and holds the classification on the current thread, so the
+     * error-handling of the same failure takes it by {@link #takeHeld(Exception)} instead of classifying it again.
+     */
+    public ExceptionClassification classifyAndHold(final Exception exception) {
+        final ExceptionClassification classification = this.classifyThrown(exception);
+        this.heldClassification.set(new HeldClassification(exception, classification));
+        return classification;
+    }
+
+    /**
+     * @return the classification held for this very exception on the current thread, otherwise classified now
+     */
+    public ExceptionClassification takeHeld(final Exception exception) {
+        final HeldClassification held = this.heldClassification.get();
+        if (Objects.isNull(held)) {
+            return this.classifyThrown(exception);
+        }
+        this.heldClassification.remove();
+        return held.exception == exception ? held.classification : this.classifyThrown(exception);
+    }
+
+    public boolean isEmpty() {
+        return this.classificationsByType.isEmpty();
+    }
+
+
+    private ExceptionClassification resolve(final Class<?> type) {
+        for (Class<?> current = type; Objects.nonNull(current); current = current.getSuperclass()) {
+            ExceptionClassification classification = this.classificationsByType.get(current.getName());
+            if (Objects.isNull(classification)) {
+                classification = this.classificationsByType.get(current.getSimpleName());
+            }
+            if (Objects.nonNull(classification)) {
+                return classification;
+            }
+        }
+        return ExceptionClassification.DEFAULT;
+    }
+
+
+    /**
+     * @param behavior {@code INSTANT_INCIDENT}, {@code BPMN_ERROR:<error-code>} or a retry-config like {@code R5/PT1M}
+     * @return the classification, null if invalid
+     */
+    public static ExceptionClassification parse(final String behavior, final long fallbackInterval) {
+        if (Objects.isNull(behavior) || behavior.trim().isEmpty()) {
+            return null;
+        }
+        final String trimmed = behavior.trim();
+        if (INSTANT_INCIDENT.equalsIgnoreCase(trimmed)) {
+            return ExceptionClassification.instantIncident();
+        }
+        if (trimmed.toUpperCase(Locale.ROOT).startsWith(BPMN_ERROR_PREFIX)) {
+            final String errorCode = trimmed.substring(BPMN_ERROR_PREFIX.length()).trim();
+            return errorCode.isEmpty() ? null : ExceptionClassification.businessError(errorCode);
+        }
+        final RetrySchedule retrySchedule = RetryConfigParser.parse(trimmed, fallbackInterval);
+        return Objects.isNull(retrySchedule) ? null : ExceptionClassification.retry(retrySchedule);
+    }
+
+    public static boolean isValid(final String behavior) {
+        return Objects.nonNull(parse(behavior, 0L));
+    }
+
+    private static Map<String, ExceptionClassification> parse(final Map<String, String> behaviorByExceptionType, final long fallbackInterval) {
+        final Map<String, ExceptionClassification> classificationsByType = new HashMap<>();
+        behaviorByExceptionType.forEach((exceptionType, behavior) -> {
+            final ExceptionClassification classification = parse(behavior, fallbackInterval);
+            if (Objects.isNull(classification)) {
+                LOGGER.warn("Invalid behavior '{}' for exception-type '{}', ignored", behavior, exceptionType);
+            } else {
+                classificationsByType.put(exceptionType.trim(), classification);
+            }
+        });
+        return classificationsByType;
+    }
+
+
+    private static final class HeldClassification {
+
+        private final Exception exception;
+        private final ExceptionClassification classification;
+
+        private HeldClassification(final Exception exception, final ExceptionClassification classification) {
+            this.exception = exception;
+            this.classification = classification;
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExecutionTimeoutException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the execution-time of handlers, per handler-class, topic or by default, in this order of precedence.
+ * On expiry, the execution is either interrupted, or abandoned and left to a separate thread, and an
+ * {@link ExecutionTimeoutException} is thrown instead, to be retried like any other failure.
+ * <p>
+ * An abandoned handler is executed on a thread of its own, together with the advice applied inside of this one (eg.
+ * local retries), with a copy of the caller's {@link MDC}. It gets an {@link ExternalTaskService} rejecting every
+ * call once the timeout is reported, so the task is either reported by the handler or as timed-out, never both.
+ */
+public class ExecutionTimeoutService implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionTimeoutService.class);
+
+    public enum Mode {
+        /**
+         * Interrupts the handler's thread, only effective if the handler reacts on interrupts
+         */
+        INTERRUPT,
+        /**
+         * Executes the handler on a separate thread and stops waiting for it, the client's thread is freed in any case.
+         * The abandoned handler keeps running, but can no longer use its {@link ExternalTaskService}.
+         */
+        ABANDON
+    }
+
+    /**
+     * The intercepted execution, proceeding with the given external-task-service, which is the intercepted one unless
+     * the execution may be abandoned.
+     */
+    @FunctionalInterface
+    public interface Execution {
+        Object proceed(ExternalTaskService externalTaskService) throws Throwable;
+    }
+
+    private static final int RUNNING = 0;
+    private static final int DONE = 1;
+    private static final int INTERRUPTING = 2;
+    private static final int INTERRUPTED = 3;
+
+    private final ExternalTaskRetryAspectProperties.Timeout properties;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor abandonableExecutor;
+    private final ConcurrentHashMap<Class<?>, Duration> handlerTimeouts = new ConcurrentHashMap<>();
+
+    public ExecutionTimeoutService(final ExternalTaskRetryAspectProperties.Timeout properties) {
+        this.properties = properties;
+        if (!properties.isEnabled()) {
+            this.scheduler = null;
+            this.abandonableExecutor = null;
+        } else if (properties.getMode() == Mode.ABANDON) {
+            this.scheduler = null;
+            this.abandonableExecutor = new ThreadPoolExecutor(0, properties.getPoolSize(), 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), threadFactory("external-task-execution-"));
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("external-task-timeout-"));
+            this.abandonableExecutor = null;
+        }
+    }
+
+
+    public Object execute(final Class<?> origin, final ExternalTask externalTask, final ExternalTaskService externalTaskService,
+                          final Execution execution) throws Throwable {
+        final Duration timeout = this.timeout(origin, externalTask);
+        if (Objects.isNull(timeout)) {
+            return execution.proceed(externalTaskService);
+        }
+        if (Objects.nonNull(this.abandonableExecutor)) {
+            try {
+                return this.abandonOnTimeout(externalTask, externalTaskService, execution, timeout);
+            } catch (final RejectedExecutionException rejected) {
+                LOGGER.warn("All {} threads for executions busy, executing task {} without timeout", this.properties.getPoolSize(), externalTask.getId());
+                return execution.proceed(externalTaskService);
+            }
+        }
+        return this.interruptOnTimeout(externalTaskService, execution, timeout);
+    }
+
+    /**
+     * @return the timeout of the handler-class, the topic, the default, or null if none
+     */
+    public Duration timeout(final Class<?> origin, final ExternalTask externalTask) {
+        if (!this.properties.isEnabled()) {
+            return null;
+        }
+        Duration timeout = this.handlerTimeouts.computeIfAbsent(origin, this::handlerTimeout);
+        if (timeout.isZero() && Objects.nonNull(externalTask.getTopicName())) {
+            timeout = this.properties.getTimeoutByTopic().getOrDefault(externalTask.getTopicName(), Duration.ZERO);
+        }
+        if (timeout.isZero()) {
+            timeout = this.properties.getDefaultTimeout();
+        }
+        return timeout.isZero() || timeout.isNegative() ? null : timeout;
+    }
+
+    @Override
+    public void close() {
+        if (Objects.nonNull(this.scheduler)) {
+            this.scheduler.shutdownNow();
+        }
+        if (Objects.nonNull(this.abandonableExecutor)) {
+            this.abandonableExecutor.shutdownNow();
+        }
+    }
+
+
+    private Object interruptOnTimeout(final ExternalTaskService externalTaskService, final Execution execution, final Duration timeout) throws Throwable {
+        final Thread thread = Thread.currentThread();
+        final AtomicInteger state = new AtomicInteger(RUNNING);
+        final ScheduledFuture<?> interruption = this.scheduler.schedule(() -> {
+            if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+                thread.interrupt();
+                state.set(INTERRUPTED);
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            return execution.proceed(externalTaskService);
+
+        } catch (final ExternalTaskBusinessError | InstantIncidentException intended) {
+            throw intended;
+
+        } catch (final Throwable throwable) {
+            if (state.get() != RUNNING) {
+                throw new ExecutionTimeoutException(timeout, throwable);
+            }
+            throw throwable;
+
+        } finally {
+            interruption.cancel(false);
+            if (!state.compareAndSet(RUNNING, DONE)) {
+                while (state.get() != INTERRUPTED) {
+                    Thread.onSpinWait();
+                }
+                Thread.interrupted(); // meant for the handler, not for the client's thread
+            }
+        }
+    }
+
+    private Object abandonOnTimeout(final ExternalTask externalTask, final ExternalTaskService externalTaskService,
+                                    final Execution execution, final Duration timeout) throws Throwable {
+        final AbandonableExternalTaskService abandonable = new AbandonableExternalTaskService(externalTaskService);
+        final Map<String, String> logContext = MDC.getCopyOfContextMap();
+        final Future<Object> future = this.abandonableExecutor.submit(() -> {
+            if (Objects.nonNull(logContext)) {
+                MDC.setContextMap(logContext);
+            }
+            try {
+                return execution.proceed(abandonable);
+            } catch (final Exception | Error exception) {
+                throw exception;
+            } catch (final Throwable throwable) {
+                throw new UndeclaredThrowableException(throwable);
+            } finally {
+                MDC.clear();
+            }
+        });
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        } catch (final ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+            throw cause instanceof UndeclaredThrowableException ? cause.getCause() : cause;
+
+        } catch (final TimeoutException timeoutException) {
+            if (!abandonable.abandon()) {
+                LOGGER.debug("Task {} reported by its handler within the timeout of {}, not waiting for the handler to return", externalTask.getId(), timeout);
+                return null;
+            }
+            future.cancel(true);
+            throw new ExecutionTimeoutException(timeout, null);
+
+        } catch (final InterruptedException interrupted) {
+            abandonable.abandon();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw interrupted;
+        }
+    }
+
+    private Duration handlerTimeout(final Class<?> origin) {
+        Duration timeout = this.properties.getTimeoutByHandler().get(origin.getName());
+        if (Objects.isNull(timeout)) {
+            timeout = this.properties.getTimeoutByHandler().get(origin.getSimpleName());
+        }
+        return Objects.isNull(timeout) ? Duration.ZERO : timeout;
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
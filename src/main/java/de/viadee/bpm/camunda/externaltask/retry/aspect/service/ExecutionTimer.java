@@ -0,0 +1,78 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import org.camunda.bpm.client.task.ExternalTask;
+
+import java.util.Objects;
+
+/**
+ * Hands measured handler-executions to the {@link ExecutionRecorder}. The outcome of a failed execution is only known
+ * once the failure is handled, eg. an incident because of an exhausted retry-budget. So its duration is held until the
+ * {@link ErrorHandlingService} records it along with the outcome actually reported. Both happen on the client's thread,
+ * the error-handling right after the handler failed.
+ */
+public class ExecutionTimer {
+
+    public static final ExecutionTimer NONE = new ExecutionTimer(ExecutionRecorder.NONE);
+
+    private final ExecutionRecorder executionRecorder;
+    private final ThreadLocal<Long> heldDuration = new ThreadLocal<>();
+
+    public ExecutionTimer(final ExecutionRecorder executionRecorder) {
+        this.executionRecorder = executionRecorder;
+    }
+
+
+    public void record(final Class<?> origin, final ExternalTask externalTask, final ExecutionRecorder.Outcome outcome, final long durationNanos) {
+        this.executionRecorder.record(origin, externalTask, outcome, durationNanos);
+    }
+
+    /**
+     * Holds the duration of a failed execution, until its outcome is known.
+     */
+    public void hold(final long durationNanos) {
+        this.heldDuration.set(durationNanos);
+    }
+
+    /**
+     * Records the execution held on the current thread, if any.
+     */
+    public void recordHeld(final Class<?> origin, final ExternalTask externalTask, final ExecutionRecorder.Outcome outcome) {
+        final Long durationNanos = this.heldDuration.get();
+        if (Objects.nonNull(durationNanos)) {
+            this.heldDuration.remove();
+            this.executionRecorder.record(origin, externalTask, outcome, durationNanos);
+        }
+    }
+
+}
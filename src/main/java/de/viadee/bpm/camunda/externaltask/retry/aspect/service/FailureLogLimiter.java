@@ -0,0 +1,154 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.TokenBucket;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the failures logged per handler-class and exception-type: the first ones within a window are
+ * logged in full, of the others only a sample is logged (without stack-trace) and the rest is counted.
+ * Once per window, a summary of the failures not logged in full is logged, the suppressed ones apart from the sampled.
+ */
+public class FailureLogLimiter implements AutoCloseable {
+
+    public enum Verdict {
+        FULL, SAMPLED, SUPPRESSED
+    }
+
+    private final ExternalTaskRetryAspectProperties.LogLimit properties;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService summaryScheduler;
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, Limit>> limits = new ConcurrentHashMap<>();
+    private final Function<Class<?>, ConcurrentHashMap<Class<?>, Limit>> newLimitsByType = origin -> new ConcurrentHashMap<>();
+    private final Function<Class<?>, Limit> newLimit;
+
+    public FailureLogLimiter(final ExternalTaskRetryAspectProperties.LogLimit properties) {
+        this(properties, System::currentTimeMillis, properties.isEnabled() ? newSummaryScheduler() : null);
+    }
+
+    FailureLogLimiter(final ExternalTaskRetryAspectProperties.LogLimit properties,
+                      final LongSupplier clock,
+                      final ScheduledExecutorService summaryScheduler) {
+        this.properties = properties;
+        this.clock = clock;
+        this.summaryScheduler = summaryScheduler;
+        this.newLimit = exceptionType -> new Limit(new TokenBucket(properties.getPermits(), properties.getWindow().toMillis()));
+
+        if (Objects.nonNull(summaryScheduler)) {
+            final long window = properties.getWindow().toMillis();
+            summaryScheduler.scheduleAtFixedRate(this::logSummary, window, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    public Verdict acquire(final Class<?> origin, final Class<?> exceptionType) {
+        if (!this.properties.isEnabled()) {
+            return Verdict.FULL;
+        }
+        final Limit limit = this.limit(origin, exceptionType);
+        if (limit.tokenBucket.tryAcquire(this.clock.getAsLong())) {
+            return Verdict.FULL;
+        }
+        final long limited = limit.limitedCount.incrementAndGet();
+        final int sampleRate = this.properties.getSampleRate();
+        if (sampleRate > 0 && limited % sampleRate == 0) {
+            limit.sampledCount.incrementAndGet();
+            return Verdict.SAMPLED;
+        }
+        limit.suppressedCount.incrementAndGet();
+        return Verdict.SUPPRESSED;
+    }
+
+    /**
+     * Logs, per handler-class and exception-type, how many failures were not logged in full since the last summary.
+     */
+    public void logSummary() {
+        this.limits.forEach((origin, limitsByType) -> limitsByType.forEach((exceptionType, limit) -> {
+            final long suppressed = limit.suppressedCount.getAndSet(0L);
+            final long sampled = limit.sampledCount.getAndSet(0L);
+            if (suppressed > 0 || sampled > 0) {
+                Loggers.of(origin).warn("Suppressed {} and sampled {} similar failure(s) of type {} within {}",
+                        suppressed, sampled, exceptionType.getSimpleName(), this.properties.getWindow());
+            }
+        }));
+    }
+
+    @Override
+    public void close() {
+        if (Objects.nonNull(this.summaryScheduler)) {
+            this.summaryScheduler.shutdownNow();
+            this.logSummary();
+        }
+    }
+
+
+    private Limit limit(final Class<?> origin, final Class<?> exceptionType) {
+        ConcurrentHashMap<Class<?>, Limit> limitsByType = this.limits.get(origin);
+        if (limitsByType == null) {
+            limitsByType = this.limits.computeIfAbsent(origin, this.newLimitsByType);
+        }
+        final Limit limit = limitsByType.get(exceptionType);
+        return limit != null ? limit : limitsByType.computeIfAbsent(exceptionType, this.newLimit);
+    }
+
+    private static ScheduledExecutorService newSummaryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "external-task-log-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    private static final class Limit {
+
+        private final TokenBucket tokenBucket;
+        private final AtomicLong limitedCount = new AtomicLong(); // not reset, to sample every n-th failure
+        private final AtomicLong suppressedCount = new AtomicLong();
+        private final AtomicLong sampledCount = new AtomicLong();
+
+        private Limit(final TokenBucket tokenBucket) {
+            this.tokenBucket = tokenBucket;
+        }
+    }
+
+}
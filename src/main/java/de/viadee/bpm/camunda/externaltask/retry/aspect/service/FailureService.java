@@ -31,13 +31,15 @@
  */
 package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
 
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.ExceptionClassification;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.Report;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
 import org.camunda.bpm.client.task.ExternalTask;
 import org.camunda.bpm.client.task.ExternalTaskService;
-import org.slf4j.LoggerFactory;
+import org.slf4j.Logger;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.Objects;
 
 import static java.lang.String.format;
@@ -47,38 +49,128 @@ import static java.util.Objects.isNull;
 public class FailureService {
 
     private final PropertyService propertyService;
+    private final RetryBudgetService retryBudgetService;
+    private final CircuitBreakerService circuitBreakerService;
+    private final ReportingExecutor reportingExecutor;
+    private final StackTraceRenderer stackTraceRenderer;
+    private final ErrorDetailsDeduplicator errorDetailsDeduplicator;
+    private final FailureLogLimiter failureLogLimiter;
+    private final RetryMetrics retryMetrics;
 
     public FailureService(final PropertyService propertyService) {
-        this.propertyService = propertyService;
+        this(builder(propertyService));
     }
 
+    private FailureService(final Builder builder) {
+        this.propertyService = builder.propertyService;
+        this.retryBudgetService = Objects.requireNonNullElseGet(builder.retryBudgetService,
+                () -> new RetryBudgetService(new ExternalTaskRetryAspectProperties.Budget()));
+        this.circuitBreakerService = Objects.requireNonNullElseGet(builder.circuitBreakerService,
+                () -> new CircuitBreakerService(new ExternalTaskRetryAspectProperties.CircuitBreaker()));
+        this.reportingExecutor = Objects.requireNonNullElseGet(builder.reportingExecutor,
+                () -> new ReportingExecutor(new ExternalTaskRetryAspectProperties.AsyncReporting()));
+        this.stackTraceRenderer = Objects.requireNonNullElseGet(builder.stackTraceRenderer,
+                () -> new StackTraceRenderer(new ExternalTaskRetryAspectProperties.ErrorDetails()));
+        this.errorDetailsDeduplicator = Objects.requireNonNullElseGet(builder.errorDetailsDeduplicator,
+                () -> new ErrorDetailsDeduplicator(new ExternalTaskRetryAspectProperties.ErrorDetails.Deduplication()));
+        this.failureLogLimiter = Objects.requireNonNullElseGet(builder.failureLogLimiter,
+                () -> new FailureLogLimiter(new ExternalTaskRetryAspectProperties.LogLimit()));
+        this.retryMetrics = builder.retryMetrics;
+    }
 
-    public void handleFailure(final Class<?> origin,
-                              final ExternalTask externalTask,
-                              final ExternalTaskService externalTaskService,
-                              final Exception exception) {
 
-        this.handleFailure(origin, externalTask, externalTaskService, exception, false);
+    /**
+     * Any collaborator not set is disabled, as by its default properties.
+     */
+    public static Builder builder(final PropertyService propertyService) {
+        return new Builder(propertyService);
     }
 
 
-    public void handleFailure(final Class<?> origin,
-                              final ExternalTask externalTask,
-                              final ExternalTaskService externalTaskService,
-                              final Exception exception,
-                              final boolean directIncident) {
+    public RetryDecision handleFailure(final Class<?> origin,
+                                       final ExternalTask externalTask,
+                                       final ExternalTaskService externalTaskService,
+                                       final Exception exception) {
+
+        return this.handleFailure(origin, externalTask, externalTaskService, exception, this.getExceptionClassifier().classify(exception));
+    }
+
+
+    /**
+     * @return the decision reported, possibly adjusted by retry-budget or circuit-breaker
+     */
+    public RetryDecision handleFailure(final Class<?> origin,
+                                       final ExternalTask externalTask,
+                                       final ExternalTaskService externalTaskService,
+                                       final Exception exception,
+                                       final boolean directIncident) {
+
+        return this.handleFailure(origin, externalTask, externalTaskService, exception,
+                directIncident ? ExceptionClassification.instantIncident() : this.getExceptionClassifier().classify(exception));
+    }
 
-        final int remainingRetries = directIncident ? 0 : this.propertyService.remainingRetries(externalTask);
-        final long nextRetryInterval = directIncident ? 0 : this.propertyService.nextRetryInterval(externalTask);
 
-        this.logFailure(origin, exception, remainingRetries, nextRetryInterval);
+    /**
+     * @param classification of the exception as resolved by the caller, an instant incident is not retried at all
+     * @return the decision reported, possibly adjusted by retry-budget or circuit-breaker
+     */
+    public RetryDecision handleFailure(final Class<?> origin,
+                                       final ExternalTask externalTask,
+                                       final ExternalTaskService externalTaskService,
+                                       final Exception exception,
+                                       final ExceptionClassification classification) {
 
-        externalTaskService.handleFailure(
+        final boolean directIncident = classification.getOutcome() == ExceptionClassification.Outcome.INSTANT_INCIDENT;
+        RetryDecision retryDecision = directIncident
+                ? RetryDecision.INSTANT_INCIDENT
+                : this.retryBudgetService.adjust(origin, externalTask, this.propertyService.decide(externalTask, exception, classification));
+
+        if (!retryDecision.isIncident() && this.circuitBreakerService.isOpen(origin)) {
+            // no need to retry before the circuit-breaker lets the next probe through
+            retryDecision = new RetryDecision(retryDecision.getRemainingRetries(),
+                    Math.max(retryDecision.getNextRetryInterval(), this.circuitBreakerService.getOpenInterval()));
+        }
+
+        this.logFailure(origin, externalTask, exception, retryDecision);
+        this.retryMetrics.recordFailure(origin, externalTask, exception, retryDecision, directIncident);
+
+        final RetryDecision reportedDecision = retryDecision;
+        this.reportingExecutor.report(externalTask, externalTaskService, () -> Report.failure(
                 externalTask,
                 this.getErrorMessage(exception),
-                this.getStackTrace(exception),
-                remainingRetries,
-                nextRetryInterval);
+                this.errorDetailsDeduplicator.details(externalTask, exception, reportedDecision, () -> this.getStackTrace(exception)),
+                reportedDecision.getRemainingRetries(),
+                reportedDecision.getNextRetryInterval()));
+        return reportedDecision;
+    }
+
+
+    /**
+     * @return the classification of exceptions, which also determines their retry-behavior
+     */
+    public ExceptionClassifier getExceptionClassifier() {
+        return this.propertyService.getExceptionClassifier();
+    }
+
+
+    /**
+     * Gives a task back to the engine without executing it, because the circuit-breaker of its handler is open.
+     * The retries are left as they are, or set to those of the retry-config if not set yet.
+     */
+    public void handleCircuitBreakerOpen(final Class<?> origin,
+                                         final ExternalTask externalTask,
+                                         final ExternalTaskService externalTaskService) {
+
+        final int retries = isNull(externalTask.getRetries())
+                ? this.propertyService.retrySchedule(externalTask).getRetries()
+                : externalTask.getRetries();
+
+        this.reportingExecutor.report(externalTask, externalTaskService, () -> Report.failure(
+                externalTask,
+                "CircuitBreakerOpen: " + origin.getSimpleName(),
+                null,
+                retries,
+                this.circuitBreakerService.getOpenInterval()));
     }
 
 
@@ -128,25 +220,94 @@ public class FailureService {
             // if instant-incident, probably root cause is more relevant
             return this.getStackTrace(throwable.getCause());
         }
-        StringWriter stackTrace = new StringWriter();
-        PrintWriter printWriter = new PrintWriter(stackTrace, true);
-        throwable.printStackTrace(printWriter);
-        return stackTrace.getBuffer().toString();
+        return this.stackTraceRenderer.render(throwable);
     }
 
 
-    private void logFailure(final Class<?> origin, final Throwable throwable, final int remainingRetries, final Long nextRetryInterval) {
-        // log remaining time only if retries > 0
-        final String millisIfRemainingRetry = format("%s", (remainingRetries == 0) ? "" : ", next retry in " + nextRetryInterval + "ms");
+    private void logFailure(final Class<?> origin, final ExternalTask externalTask, final Throwable throwable, final RetryDecision retryDecision) {
+        final Logger logger = Loggers.of(origin);
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
 
-        final String errorLogString =
-                format("%s: %s. There are %s retry(s) left%s",
-                        throwable.getClass().getSimpleName(),
-                        throwable.getMessage(),
-                        remainingRetries,
-                        millisIfRemainingRetry);
+        // incidents are always logged in full
+        final FailureLogLimiter.Verdict verdict = retryDecision.isIncident()
+                ? FailureLogLimiter.Verdict.FULL
+                : this.failureLogLimiter.acquire(origin, throwable.getClass());
+        if (verdict == FailureLogLimiter.Verdict.SUPPRESSED) {
+            return;
+        }
+        final Throwable stackTrace = verdict == FailureLogLimiter.Verdict.FULL ? throwable : null;
 
-        LoggerFactory.getLogger(origin).error(errorLogString, throwable);
+        try (TaskLogContext ignored = TaskLogContext.of(externalTask, retryDecision)) {
+            // log remaining time only if retries > 0
+            if (retryDecision.getRemainingRetries() == 0) {
+                logger.error("{}: {}. There are {} retry(s) left",
+                        throwable.getClass().getSimpleName(), throwable.getMessage(), retryDecision.getRemainingRetries(), stackTrace);
+            } else {
+                logger.error("{}: {}. There are {} retry(s) left, next retry in {}ms",
+                        throwable.getClass().getSimpleName(), throwable.getMessage(), retryDecision.getRemainingRetries(),
+                        retryDecision.getNextRetryInterval(), stackTrace);
+            }
+        }
+    }
+
+
+
+    public static class Builder {
+
+        private final PropertyService propertyService;
+        private RetryBudgetService retryBudgetService;
+        private CircuitBreakerService circuitBreakerService;
+        private ReportingExecutor reportingExecutor;
+        private StackTraceRenderer stackTraceRenderer;
+        private ErrorDetailsDeduplicator errorDetailsDeduplicator;
+        private FailureLogLimiter failureLogLimiter;
+        private RetryMetrics retryMetrics = RetryMetrics.NONE;
+
+        private Builder(final PropertyService propertyService) {
+            this.propertyService = Objects.requireNonNull(propertyService, "propertyService");
+        }
+
+
+        public Builder retryBudgetService(final RetryBudgetService retryBudgetService) {
+            this.retryBudgetService = Objects.requireNonNull(retryBudgetService, "retryBudgetService");
+            return this;
+        }
+
+        public Builder circuitBreakerService(final CircuitBreakerService circuitBreakerService) {
+            this.circuitBreakerService = Objects.requireNonNull(circuitBreakerService, "circuitBreakerService");
+            return this;
+        }
+
+        public Builder reportingExecutor(final ReportingExecutor reportingExecutor) {
+            this.reportingExecutor = Objects.requireNonNull(reportingExecutor, "reportingExecutor");
+            return this;
+        }
+
+        public Builder stackTraceRenderer(final StackTraceRenderer stackTraceRenderer) {
+            this.stackTraceRenderer = Objects.requireNonNull(stackTraceRenderer, "stackTraceRenderer");
+            return this;
+        }
+
+        public Builder errorDetailsDeduplicator(final ErrorDetailsDeduplicator errorDetailsDeduplicator) {
+            this.errorDetailsDeduplicator = Objects.requireNonNull(errorDetailsDeduplicator, "errorDetailsDeduplicator");
+            return this;
+        }
+
+        public Builder failureLogLimiter(final FailureLogLimiter failureLogLimiter) {
+            this.failureLogLimiter = Objects.requireNonNull(failureLogLimiter, "failureLogLimiter");
+            return this;
+        }
+
+        public Builder retryMetrics(final RetryMetrics retryMetrics) {
+            this.retryMetrics = Objects.requireNonNull(retryMetrics, "retryMetrics");
+            return this;
+        }
+
+        public FailureService build() {
+            return new FailureService(this);
+        }
     }
 
 }
@@ -0,0 +1,128 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.LatencyHistogram;
+import org.camunda.bpm.client.task.ExternalTask;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Records handler-executions into one {@link LatencyHistogram} per handler-class, topic and outcome.
+ */
+public class LatencyHistogramRecorder implements ExecutionRecorder {
+
+    private final ConcurrentHashMap<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Function<Key, LatencyHistogram> newHistogram;
+
+    public LatencyHistogramRecorder(final ExternalTaskRetryAspectProperties.Timing properties) {
+        final long highestTrackableValue = TimeUnit.MILLISECONDS.toMicros(properties.getHighestTrackableValue().toMillis());
+        this.newHistogram = key -> new LatencyHistogram(highestTrackableValue);
+    }
+
+
+    @Override
+    public void record(final Class<?> origin, final ExternalTask externalTask, final Outcome outcome, final long durationNanos) {
+        final Key key = new Key(origin, Objects.isNull(externalTask) ? null : externalTask.getTopicName(), outcome);
+        LatencyHistogram histogram = this.histograms.get(key);
+        if (histogram == null) {
+            histogram = this.histograms.computeIfAbsent(key, this.newHistogram);
+        }
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    /**
+     * @return the histogram, or null if nothing was recorded yet
+     */
+    public LatencyHistogram getHistogram(final Class<?> origin, final String topicName, final Outcome outcome) {
+        return this.histograms.get(new Key(origin, topicName, outcome));
+    }
+
+    public Map<Key, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(this.histograms);
+    }
+
+
+    public static final class Key {
+
+        private final Class<?> origin;
+        private final String topicName;
+        private final Outcome outcome;
+
+        private Key(final Class<?> origin, final String topicName, final Outcome outcome) {
+            this.origin = origin;
+            this.topicName = topicName;
+            this.outcome = outcome;
+        }
+
+        public Class<?> getOrigin() {
+            return this.origin;
+        }
+
+        public String getTopicName() {
+            return this.topicName;
+        }
+
+        public Outcome getOutcome() {
+            return this.outcome;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) other;
+            return this.origin == key.origin && Objects.equals(this.topicName, key.topicName) && this.outcome == key.outcome;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.origin, this.topicName, this.outcome);
+        }
+
+        @Override
+        public String toString() {
+            return this.origin.getSimpleName() + "/" + this.topicName + "/" + this.outcome;
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Extends the lock of a task while its handler is still running: shortly before the lock expires, it is extended
+ * by the configured extension, until the handler returns or the maximum total extension is reached. All watched
+ * tasks share one scheduler, no thread is blocked per task. The safety-margin has to be below the extension, otherwise
+ * half of the extension is used, so extensions never follow each other without any delay.
+ */
+public class LockWatchdog implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LockWatchdog.class);
+
+    /**
+     * Stops watching a task once the handler returned.
+     */
+    public interface Watch extends AutoCloseable {
+
+        Watch NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+
+    private final ExternalTaskRetryAspectProperties.LockWatchdog properties;
+    private final long safetyMargin;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    public LockWatchdog(final ExternalTaskRetryAspectProperties.LockWatchdog properties) {
+        this(properties, System::currentTimeMillis, properties.isEnabled() ? newScheduler(properties.getPoolSize()) : null);
+    }
+
+    LockWatchdog(final ExternalTaskRetryAspectProperties.LockWatchdog properties,
+                 final LongSupplier clock,
+                 final ScheduledExecutorService scheduler) {
+        this.properties = properties;
+        this.safetyMargin = safetyMargin(properties);
+        this.clock = clock;
+        this.scheduler = scheduler;
+    }
+
+
+    /**
+     * @return a watch to be closed once the handler returned, {@link Watch#NONE} if the lock-expiration is unknown
+     */
+    public Watch watch(final ExternalTask externalTask, final ExternalTaskService externalTaskService) {
+        if (Objects.isNull(this.scheduler) || Objects.isNull(externalTask.getLockExpirationTime())) {
+            return Watch.NONE;
+        }
+        final TaskWatch watch = new TaskWatch(externalTask, externalTaskService);
+        watch.schedule(externalTask.getLockExpirationTime().getTime());
+        return watch;
+    }
+
+    @Override
+    public void close() {
+        if (Objects.nonNull(this.scheduler)) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+
+    private static long safetyMargin(final ExternalTaskRetryAspectProperties.LockWatchdog properties) {
+        final long safetyMargin = properties.getSafetyMargin().toMillis();
+        final long extension = properties.getExtension().toMillis();
+        if (safetyMargin < extension) {
+            return safetyMargin;
+        }
+        if (properties.isEnabled()) {
+            LOGGER.warn("Lock-watchdog safety-margin {} is not below the extension {}, using {}ms",
+                    properties.getSafetyMargin(), properties.getExtension(), extension / 2);
+        }
+        return extension / 2;
+    }
+
+    private static ScheduledExecutorService newScheduler(final int poolSize) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newScheduledThreadPool(poolSize, runnable -> {
+            final Thread thread = new Thread(runnable, "external-task-lock-watchdog-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    private final class TaskWatch implements Watch, Runnable {
+
+        private final ExternalTask externalTask;
+        private final ExternalTaskService externalTaskService;
+        private long extended;
+        private volatile boolean closed;
+        private volatile ScheduledFuture<?> next;
+
+        private TaskWatch(final ExternalTask externalTask, final ExternalTaskService externalTaskService) {
+            this.externalTask = externalTask;
+            this.externalTaskService = externalTaskService;
+        }
+
+        private void schedule(final long lockExpiration) {
+            final long delay = lockExpiration - LockWatchdog.this.safetyMargin - LockWatchdog.this.clock.getAsLong();
+            this.next = LockWatchdog.this.scheduler.schedule(this, Math.max(0L, delay), TimeUnit.MILLISECONDS);
+            if (this.closed) {
+                this.next.cancel(false); // closed while scheduling
+            }
+        }
+
+        @Override
+        public void run() {
+            final long extension = Math.min(LockWatchdog.this.properties.getExtension().toMillis(),
+                    LockWatchdog.this.properties.getMaximumTotalExtension().toMillis() - this.extended);
+            if (this.closed || extension <= 0) {
+                return;
+            }
+
+            try {
+                this.externalTaskService.extendLock(this.externalTask, extension);
+            } catch (final RuntimeException exception) {
+                // eg. the task was completed meanwhile
+                LOGGER.debug("Could not extend lock of task {}: {}", this.externalTask.getId(), exception.getMessage());
+                return;
+            }
+            this.extended += extension;
+            LOGGER.debug("Extended lock of task {} by {}ms, {}ms in total", this.externalTask.getId(), extension, this.extended);
+            this.schedule(LockWatchdog.this.clock.getAsLong() + extension);
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            final ScheduledFuture<?> scheduled = this.next;
+            if (Objects.nonNull(scheduled)) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+
+}
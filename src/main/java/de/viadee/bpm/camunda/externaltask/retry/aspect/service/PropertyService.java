@@ -32,23 +32,110 @@
 package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
 
 import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExecutionTimeoutException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.ExceptionClassification;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryBehaviour;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryConfigParser;
 import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryConfigValues;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryJitter;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetrySchedule;
 import org.camunda.bpm.client.task.ExternalTask;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 
 public final class PropertyService {
 
+    // cached for invalid retry-configs, which are replaced by the default matching the task
+    private static final RetrySchedule INVALID = new RetrySchedule(0, new long[]{0L});
+
     private final RetryConfigValues valueVault;
+    private final RetryScheduleCache scheduleCache;
+    private final RetrySchedule defaultSchedule;
+    private final RetryJitter retryJitter;
+
+    // default-behavior per topic, process-definition-key and tenant, in this order of precedence
+    private final Map<String, RetrySchedule> topicDefaults;
+    private final Map<String, RetrySchedule> processDefinitionKeyDefaults;
+    private final Map<String, RetrySchedule> tenantDefaults;
+    private final boolean hierarchicalDefaults;
+
+    // own retry-behavior for exceeded timeouts, null if the task's retry-behavior applies
+    private final RetrySchedule timeoutSchedule;
+
+    private final ExceptionClassifier exceptionClassifier;
 
     public PropertyService(final ExternalTaskRetryAspectProperties properties) {
+        this(properties, new ExceptionClassifier(properties));
+    }
+
+    public PropertyService(final ExternalTaskRetryAspectProperties properties, final ExceptionClassifier exceptionClassifier) {
         this.valueVault = new RetryConfigValues(properties);
+        this.retryJitter = new RetryJitter(properties.getJitter().getType(), properties.getJitter().getBound());
+        this.scheduleCache = new RetryScheduleCache(properties.getScheduleCacheSize(), this::compileOrInvalid);
+        this.defaultSchedule = this.compileDefault();
+
+        this.topicDefaults = this.compileDefaults(properties.getDefaultBehaviorByTopic());
+        this.processDefinitionKeyDefaults = this.compileDefaults(properties.getDefaultBehaviorByProcessDefinitionKey());
+        this.tenantDefaults = this.compileDefaults(properties.getDefaultBehaviorByTenant());
+        this.hierarchicalDefaults = !this.topicDefaults.isEmpty()
+                || !this.processDefinitionKeyDefaults.isEmpty()
+                || !this.tenantDefaults.isEmpty();
+        this.timeoutSchedule = this.compileOrNull(properties.getTimeout().getRetryBehavior());
+        this.exceptionClassifier = exceptionClassifier;
+    }
+
+
+    public RetryDecision decide(final ExternalTask externalTask) {
+        return this.decide(externalTask, this.retrySchedule(externalTask), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #decide(ExternalTask)}, but an exceeded timeout is retried according to its own
+     * retry-behavior, if configured, at most as often as configured there. The same applies to
+     * exceptions classified with a specific retry-config, those classified as instant incident
+     * are not retried at all.
+     */
+    public RetryDecision decide(final ExternalTask externalTask, final Throwable throwable) {
+        return this.decide(externalTask, throwable, this.exceptionClassifier.classify(throwable));
+    }
+
+    /**
+     * Like {@link #decide(ExternalTask, Throwable)}, with the classification already resolved by the caller.
+     */
+    public RetryDecision decide(final ExternalTask externalTask, final Throwable throwable, final ExceptionClassification classification) {
+        if (throwable instanceof ExecutionTimeoutException && Objects.nonNull(this.timeoutSchedule)) {
+            return this.decide(externalTask, this.timeoutSchedule, this.timeoutSchedule.getRetries());
+        }
+        if (classification.getOutcome() == ExceptionClassification.Outcome.INSTANT_INCIDENT) {
+            return RetryDecision.INSTANT_INCIDENT;
+        }
+        if (Objects.nonNull(classification.getRetrySchedule())) {
+            return this.decide(externalTask, classification.getRetrySchedule(), classification.getRetrySchedule().getRetries());
+        }
+        return this.decide(externalTask);
+    }
+
+    private RetryDecision decide(final ExternalTask externalTask, final RetrySchedule retrySchedule, final int maximumRetries) {
+        final Integer retries = externalTask.getRetries();
+
+        final int remainingRetries;
+        if (Objects.isNull(retries)) {
+            // first failure: retries according to config
+            remainingRetries = retrySchedule.getRetries();
+        } else {
+            remainingRetries = retries <= 0 ? 0 : Math.min(retries - 1, maximumRetries);
+        }
+        final long nextRetryInterval = retrySchedule.nextRetryInterval(remainingRetries);
+        return new RetryDecision(remainingRetries, this.retryJitter.apply(retrySchedule, nextRetryInterval));
     }
 
 
     public int remainingRetries(final ExternalTask externalTask) {
-        RetryBehaviour retryBehaviour = new RetryBehaviour(externalTask, this.valueVault);
-        return this.remainingRetries(retryBehaviour);
+        return this.decide(externalTask).getRemainingRetries();
     }
 
 
@@ -61,9 +148,88 @@ public final class PropertyService {
     }
 
     public long nextRetryInterval(final ExternalTask externalTask) {
-        RetryBehaviour retryBehaviour = new RetryBehaviour(externalTask, this.valueVault);
-        final int remainingRetries = this.remainingRetries(retryBehaviour);
-        return retryBehaviour.nextRetryInterval(remainingRetries);
+        return this.decide(externalTask).getNextRetryInterval();
+    }
+
+
+    public RetrySchedule retrySchedule(final ExternalTask externalTask) {
+        final RetrySchedule retrySchedule = this.lookup(externalTask.getExtensionProperty(this.valueVault.getRetryConfigName()));
+        return Objects.nonNull(retrySchedule) ? retrySchedule : this.defaultSchedule(externalTask);
+    }
+
+    public RetrySchedule retrySchedule(final String retryProperty) {
+        final RetrySchedule retrySchedule = this.lookup(retryProperty);
+        return Objects.nonNull(retrySchedule) ? retrySchedule : this.defaultSchedule;
+    }
+
+    /**
+     * Default for tasks without (valid) retry-config: by topic, process-definition-key,
+     * tenant, finally the global default-behavior.
+     */
+    private RetrySchedule defaultSchedule(final ExternalTask externalTask) {
+        if (!this.hierarchicalDefaults) {
+            return this.defaultSchedule;
+        }
+        RetrySchedule retrySchedule = lookup(this.topicDefaults, externalTask.getTopicName());
+        if (Objects.isNull(retrySchedule)) {
+            retrySchedule = lookup(this.processDefinitionKeyDefaults, externalTask.getProcessDefinitionKey());
+        }
+        if (Objects.isNull(retrySchedule)) {
+            retrySchedule = lookup(this.tenantDefaults, externalTask.getTenantId());
+        }
+        return Objects.nonNull(retrySchedule) ? retrySchedule : this.defaultSchedule;
+    }
+
+    private RetrySchedule lookup(final String retryProperty) {
+        if (Objects.isNull(retryProperty) || retryProperty.trim().isEmpty()) {
+            return null;
+        }
+        final RetrySchedule retrySchedule = this.scheduleCache.get(retryProperty);
+        return retrySchedule == INVALID ? null : retrySchedule;
+    }
+
+    private static RetrySchedule lookup(final Map<String, RetrySchedule> defaults, final String key) {
+        return Objects.isNull(key) ? null : defaults.get(key);
+    }
+
+    public boolean isValid(final String retryProperty) {
+        return Objects.nonNull(retryProperty) && Objects.nonNull(this.compile(retryProperty));
+    }
+
+    public RetryScheduleCache getRetryScheduleCache() {
+        return this.scheduleCache;
+    }
+
+    public ExceptionClassifier getExceptionClassifier() {
+        return this.exceptionClassifier;
+    }
+
+
+    private RetrySchedule compileOrInvalid(final String retryProperty) {
+        final RetrySchedule retrySchedule = this.compile(retryProperty);
+        return Objects.nonNull(retrySchedule) ? retrySchedule : INVALID;
+    }
+
+    private Map<String, RetrySchedule> compileDefaults(final Map<String, String> defaultBehaviors) {
+        final Map<String, RetrySchedule> defaults = new HashMap<>();
+        defaultBehaviors.forEach((key, retryProperty) -> {
+            final RetrySchedule retrySchedule = Objects.isNull(retryProperty) ? null : this.compile(retryProperty);
+            defaults.put(key, Objects.nonNull(retrySchedule) ? retrySchedule : this.defaultSchedule);
+        });
+        return Map.copyOf(defaults);
+    }
+
+    private RetrySchedule compileOrNull(final String retryProperty) {
+        return Objects.isNull(retryProperty) || retryProperty.trim().isEmpty() ? null : this.compile(retryProperty);
+    }
+
+    private RetrySchedule compileDefault() {
+        final RetrySchedule retrySchedule = this.compile(this.valueVault.getDefaultRetryConfig());
+        return Objects.nonNull(retrySchedule) ? retrySchedule : this.compile(this.valueVault.getFallbackRetryTimeCycle());
+    }
+
+    private RetrySchedule compile(final String retryProperty) {
+        return RetryConfigParser.parse(retryProperty, this.valueVault.getFallbackInterval());
     }
 
 }
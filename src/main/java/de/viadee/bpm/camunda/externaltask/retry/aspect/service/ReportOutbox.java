@@ -0,0 +1,366 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.Report;
+import org.camunda.bpm.client.exception.BadRequestException;
+import org.camunda.bpm.client.exception.NotFoundException;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Durable outbox for reports the engine could not be reached for. Reports are sent right away, only if sending
+ * fails, eg. the engine is restarting, the report is appended to a memory-mapped file and replayed with a growing
+ * interval until the engine accepts it. Pending reports survive a restart of the application, they are replayed
+ * once the next report was sent, which provides the {@link ExternalTaskService}; until then, they are only dropped
+ * as their locks expire. Reports of tasks, whose lock has already expired, are dropped: the engine would reject
+ * them and the task is fetched again anyway.
+ * <p>
+ * File-layout: a magic number followed by entries of {@code [int length][byte state][report]}, a length
+ * of 0 ends the log. The length is written last, so a partially written entry is never read. Once full, the
+ * pending entries are written to a new file, which atomically replaces the outbox.
+ */
+public class ReportOutbox implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportOutbox.class);
+
+    private static final int MAGIC = 0x4554524F; // "ETRO"
+    private static final int HEADER_SIZE = Integer.BYTES;
+    private static final int ENTRY_HEADER_SIZE = Integer.BYTES + 1;
+    private static final byte PENDING = 1;
+    private static final byte DONE = 2;
+
+    /**
+     * Sends every report right away, without keeping any.
+     */
+    public static final ReportOutbox NONE = new ReportOutbox(new ExternalTaskRetryAspectProperties.Outbox());
+
+    private final ExternalTaskRetryAspectProperties.Outbox properties;
+    private final AtomicReference<ExternalTaskService> externalTaskService = new AtomicReference<>();
+    private final List<Entry> pendingEntries = new ArrayList<>();
+
+    private FileChannel fileChannel;
+    private MappedByteBuffer buffer;
+    private ScheduledExecutorService replayScheduler;
+    private ScheduledFuture<?> scheduledReplay;
+    private long replayInterval;
+
+    public ReportOutbox(final ExternalTaskRetryAspectProperties.Outbox properties) {
+        this.properties = properties;
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        this.replayInterval = properties.getReplayInterval().toMillis();
+        try {
+            this.open(Path.of(properties.getFile()), (int) Math.min(Integer.MAX_VALUE, properties.getCapacity().toBytes()));
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Could not open outbox " + properties.getFile(), exception);
+        }
+        this.replayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "external-task-outbox-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!this.pendingEntries.isEmpty()) {
+            LOGGER.info("{} pending report(s) found in outbox, replaying as soon as the engine is available", this.pendingEntries.size());
+            this.scheduleReplay();
+        }
+    }
+
+
+    /**
+     * Sends the report to the engine. If the engine is unreachable, the report is kept for a replay
+     * instead of throwing. Rejections by the engine, eg. the task is locked by another worker, are thrown.
+     */
+    public void send(final ExternalTaskService externalTaskService, final Report report) {
+        if (!this.properties.isEnabled()) {
+            report.sendTo(externalTaskService);
+            return;
+        }
+
+        this.externalTaskService.set(externalTaskService);
+        try {
+            report.sendTo(externalTaskService);
+
+        } catch (final NotFoundException | BadRequestException rejected) {
+            throw rejected;
+
+        } catch (final RuntimeException unreachable) {
+            if (!this.append(report)) {
+                throw unreachable;
+            }
+            LOGGER.warn("Sending {} failed, kept in outbox for replay: {}", report, unreachable.getMessage());
+            this.scheduleReplay();
+        }
+    }
+
+    /**
+     * Sends all pending reports, stops at the first one the engine is still unreachable for.
+     *
+     * @return true, if no report is pending anymore
+     */
+    public boolean replay() {
+        final ExternalTaskService service = this.externalTaskService.get();
+        if (Objects.isNull(service)) {
+            return false; // no handler executed yet
+        }
+
+        final List<Entry> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(this.pendingEntries);
+        }
+        for (final Entry entry : entries) {
+            if (entry.report.isStale(System.currentTimeMillis())) {
+                LOGGER.warn("Dropped {} from outbox, the lock has already expired", entry.report);
+                this.remove(entry);
+                continue;
+            }
+            try {
+                entry.report.sendTo(service);
+                this.remove(entry);
+            } catch (final NotFoundException | BadRequestException rejected) {
+                LOGGER.warn("Dropped {} from outbox, rejected by the engine: {}", entry.report, rejected.getMessage());
+                this.remove(entry);
+            } catch (final RuntimeException unreachable) {
+                return false;
+            }
+        }
+        return this.getPendingCount() == 0;
+    }
+
+    public synchronized int getPendingCount() {
+        return this.pendingEntries.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (Objects.nonNull(this.replayScheduler)) {
+            this.replayScheduler.shutdownNow();
+        }
+        if (Objects.isNull(this.fileChannel)) {
+            return;
+        }
+        this.buffer.force();
+        try {
+            this.fileChannel.close();
+        } catch (final IOException exception) {
+            LOGGER.warn("Could not close outbox {}", this.properties.getFile(), exception);
+        }
+        this.fileChannel = null;
+    }
+
+
+    private void open(final Path file, final int capacity) throws IOException {
+        if (Objects.nonNull(file.toAbsolutePath().getParent())) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        this.map(file, capacity);
+
+        if (this.buffer.getInt(0) != MAGIC) {
+            this.buffer.putInt(0, MAGIC);
+            this.buffer.putInt(HEADER_SIZE, 0);
+            this.buffer.position(HEADER_SIZE);
+            return;
+        }
+
+        // recover pending reports of a previous run
+        int position = HEADER_SIZE;
+        while (position + ENTRY_HEADER_SIZE <= this.buffer.limit()) {
+            final int length = this.buffer.getInt(position);
+            if (length <= 0 || position + ENTRY_HEADER_SIZE + length > this.buffer.limit()) {
+                break;
+            }
+            if (this.buffer.get(position + Integer.BYTES) == PENDING) {
+                final byte[] serialized = new byte[length];
+                this.buffer.get(position + ENTRY_HEADER_SIZE, serialized);
+                try {
+                    this.pendingEntries.add(new Entry(position, Report.deserialize(serialized)));
+                } catch (final IOException corrupt) {
+                    LOGGER.warn("Skipped corrupt entry in outbox {}: {}", file, corrupt.getMessage());
+                }
+            }
+            position += ENTRY_HEADER_SIZE + length;
+        }
+        this.buffer.position(position);
+    }
+
+    private void map(final Path file, final int capacity) throws IOException {
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final int size = (int) Math.max(capacity, this.fileChannel.size());
+        this.buffer = this.fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * @return false, if the report could not be kept
+     */
+    private synchronized boolean append(final Report report) {
+        if (Objects.isNull(this.fileChannel)) {
+            return false;
+        }
+        final byte[] serialized;
+        try {
+            serialized = report.serialize();
+        } catch (final IOException notSerializable) {
+            LOGGER.warn("{} can not be kept in outbox: {}", report, notSerializable.getMessage());
+            return false;
+        }
+
+        final int required = ENTRY_HEADER_SIZE + serialized.length + Integer.BYTES; // incl. end-marker
+        if (this.buffer.position() + required > this.buffer.limit()) {
+            this.compact();
+        }
+        if (Objects.isNull(this.fileChannel) || this.buffer.position() + required > this.buffer.limit()) {
+            LOGGER.warn("Outbox {} is full, {} is not kept", this.properties.getFile(), report);
+            return false;
+        }
+
+        final int offset = this.buffer.position();
+        this.buffer.put(offset + Integer.BYTES, PENDING);
+        this.buffer.put(offset + ENTRY_HEADER_SIZE, serialized);
+        this.buffer.putInt(offset + ENTRY_HEADER_SIZE + serialized.length, 0);
+        this.buffer.putInt(offset, serialized.length); // commits the entry
+        this.buffer.force();
+        this.buffer.position(offset + ENTRY_HEADER_SIZE + serialized.length);
+
+        this.pendingEntries.add(new Entry(offset, report));
+        return true;
+    }
+
+    private synchronized void remove(final Entry entry) {
+        if (Objects.nonNull(entry) && this.pendingEntries.remove(entry) && Objects.nonNull(this.fileChannel)) {
+            this.buffer.put(entry.offset + Integer.BYTES, DONE);
+        }
+    }
+
+    /**
+     * Writes the pending entries to a new file, dropping all entries done, which then replaces the outbox. A crash
+     * while compacting leaves either the previous or the compacted outbox, never a partially rewritten one.
+     */
+    private void compact() {
+        final Path file = Path.of(this.properties.getFile());
+        final Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        final int[] offsets = new int[this.pendingEntries.size()];
+        int position = HEADER_SIZE;
+        try (FileChannel compactedChannel = FileChannel.open(compacted,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            compactedChannel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip());
+            for (int i = 0; i < offsets.length; i++) {
+                final Entry entry = this.pendingEntries.get(i);
+                final byte[] serialized = new byte[ENTRY_HEADER_SIZE + this.buffer.getInt(entry.offset)];
+                this.buffer.get(entry.offset, serialized);
+                offsets[i] = position;
+                position += compactedChannel.write(ByteBuffer.wrap(serialized));
+            }
+            compactedChannel.write(ByteBuffer.allocate(Integer.BYTES)); // end-marker
+            compactedChannel.force(true);
+        } catch (final IOException exception) {
+            LOGGER.warn("Could not compact outbox {}: {}", file, exception.getMessage());
+            return;
+        }
+
+        try {
+            this.fileChannel.close();
+            Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            this.map(file, this.buffer.limit());
+        } catch (final IOException exception) {
+            LOGGER.error("Could not replace outbox {} by its compacted version, outbox disabled", file, exception);
+            this.fileChannel = null;
+            return;
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            this.pendingEntries.get(i).offset = offsets[i];
+        }
+        this.buffer.position(position);
+    }
+
+    private void scheduleReplay() {
+        synchronized (this) {
+            if (Objects.isNull(this.fileChannel) || (Objects.nonNull(this.scheduledReplay) && !this.scheduledReplay.isDone())) {
+                return;
+            }
+            this.scheduledReplay = this.replayScheduler.schedule(this::replayWithBackoff, this.replayInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void replayWithBackoff() {
+        final boolean replayed;
+        try {
+            replayed = this.replay();
+        } catch (final RuntimeException exception) {
+            LOGGER.error("Replaying outbox failed", exception);
+            return;
+        }
+        synchronized (this) {
+            if (replayed) {
+                this.replayInterval = this.properties.getReplayInterval().toMillis();
+                return;
+            }
+            this.replayInterval = Math.min(this.replayInterval * 2, this.properties.getMaximumReplayInterval().toMillis());
+            this.scheduledReplay = null;
+        }
+        this.scheduleReplay();
+    }
+
+
+    private static final class Entry {
+
+        private int offset;
+        private final Report report;
+
+        private Entry(final int offset, final Report report) {
+            this.offset = offset;
+            this.report = report;
+        }
+    }
+
+}
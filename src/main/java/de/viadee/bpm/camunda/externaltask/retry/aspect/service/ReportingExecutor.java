@@ -0,0 +1,195 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.Report;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends reports (failures, bpmn-errors) to the engine. Synchronously by default, or asynchronously
+ * off the client's thread: each task is assigned to one of several single-threaded lanes by its id,
+ * so the reports of a task are sent in order. Each lane has a bounded queue, if it is full the
+ * {@link OverflowPolicy} applies. On {@link #close()}, queued reports are flushed.
+ */
+public class ReportingExecutor implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        /**
+         * Wait for free space in the queue.
+         */
+        BLOCK,
+
+        /**
+         * Send the report on the calling thread, it might overtake a queued report of the same task.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Drop the report, the task is fetched again once its lock expires.
+         */
+        DISCARD
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportingExecutor.class);
+
+    private final ThreadPoolExecutor[] lanes;
+    private final ReportOutbox reportOutbox;
+    private final long shutdownTimeoutMillis;
+    private final LongAdder discardCount = new LongAdder();
+
+    public ReportingExecutor(final ExternalTaskRetryAspectProperties.AsyncReporting properties) {
+        this(properties, ReportOutbox.NONE);
+    }
+
+    public ReportingExecutor(final ExternalTaskRetryAspectProperties.AsyncReporting properties, final ReportOutbox reportOutbox) {
+        this.reportOutbox = reportOutbox;
+        this.shutdownTimeoutMillis = properties.getShutdownTimeout().toMillis();
+        if (!properties.isEnabled()) {
+            this.lanes = null;
+            return;
+        }
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final RejectedExecutionHandler overflowHandler = this.overflowHandler(properties.getOverflowPolicy());
+        this.lanes = new ThreadPoolExecutor[properties.getLanes()];
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, "external-task-reporting-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    overflowHandler);
+        }
+    }
+
+
+    /**
+     * Sends the report created by the supplier, which is called on the reporting-thread.
+     */
+    public void report(final ExternalTask externalTask,
+                       final ExternalTaskService externalTaskService,
+                       final Supplier<Report> report) {
+
+        this.execute(externalTask, () -> this.reportOutbox.send(externalTaskService, report.get()));
+    }
+
+    public void execute(final ExternalTask externalTask, final Runnable report) {
+        if (Objects.isNull(this.lanes)) {
+            report.run();
+            return;
+        }
+        final int lane = Math.floorMod(Objects.hashCode(externalTask.getId()), this.lanes.length);
+        this.lanes[lane].execute(() -> {
+            try {
+                report.run();
+            } catch (final RuntimeException exception) {
+                LOGGER.error("Reporting external-task {} failed, it is fetched again once its lock expires", externalTask.getId(), exception);
+            }
+        });
+    }
+
+    public boolean isAsynchronous() {
+        return Objects.nonNull(this.lanes);
+    }
+
+    public long getDiscardCount() {
+        return this.discardCount.sum();
+    }
+
+    /**
+     * Flushes the queued reports, waiting at most the configured shutdown-timeout.
+     */
+    @Override
+    public void close() {
+        if (Objects.isNull(this.lanes)) {
+            return;
+        }
+        for (final ThreadPoolExecutor lane : this.lanes) {
+            lane.shutdown();
+        }
+        final long deadline = System.currentTimeMillis() + this.shutdownTimeoutMillis;
+        try {
+            for (final ThreadPoolExecutor lane : this.lanes) {
+                if (!lane.awaitTermination(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("{} report(s) not sent within the shutdown-timeout", lane.shutdownNow().size());
+                }
+            }
+        } catch (final InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private RejectedExecutionHandler overflowHandler(final OverflowPolicy overflowPolicy) {
+        return (report, lane) -> {
+            if (lane.isShutdown()) {
+                report.run(); // no reports are lost after close
+                return;
+            }
+            switch (overflowPolicy) {
+                case CALLER_RUNS:
+                    report.run();
+                    break;
+                case DISCARD:
+                    this.discardCount.increment();
+                    LOGGER.warn("Reporting-queue is full, report discarded");
+                    break;
+                default:
+                    try {
+                        lane.getQueue().put(report);
+                        if (lane.isShutdown() && lane.getQueue().remove(report)) {
+                            report.run(); // closed while waiting
+                        }
+                    } catch (final InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        report.run();
+                    }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryBudget;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the retry-traffic per topic (or handler) below a ratio of its successful executions.
+ * Once the budget is used up, further failures are retried later or consume more retries.
+ */
+public class RetryBudgetService {
+
+    public enum Key {
+        TOPIC, HANDLER
+    }
+
+    public enum Strategy {
+        /**
+         * Multiply the interval until the next retry.
+         */
+        STRETCH,
+
+        /**
+         * Consume more than one retry per failure.
+         */
+        CONSUME
+    }
+
+    private final ExternalTaskRetryAspectProperties.Budget budget;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+    private final Function<String, RetryBudget> newRetryBudget;
+
+    public RetryBudgetService(final ExternalTaskRetryAspectProperties.Budget budget) {
+        this(budget, System::currentTimeMillis);
+    }
+
+    RetryBudgetService(final ExternalTaskRetryAspectProperties.Budget budget, final LongSupplier clock) {
+        this.budget = budget;
+        this.clock = clock;
+        this.newRetryBudget = key -> new RetryBudget(budget.getWindow().toMillis(), budget.getBuckets());
+    }
+
+
+    public RetryDecision adjust(final Class<?> origin, final ExternalTask externalTask, final RetryDecision retryDecision) {
+        if (!this.budget.isEnabled() || retryDecision.isIncident()) {
+            return retryDecision;
+        }
+
+        final long now = this.clock.getAsLong();
+        final RetryBudget retryBudget = this.retryBudget(origin, externalTask);
+        retryBudget.recordRetry(now);
+        if (!retryBudget.isExhausted(now, this.budget.getRatio(), this.budget.getMinimumRetries())) {
+            return retryDecision;
+        }
+
+        if (this.budget.getStrategy() == Strategy.STRETCH) {
+            final long stretched = (long) Math.min(Long.MAX_VALUE, retryDecision.getNextRetryInterval() * this.budget.getIntervalMultiplier());
+            return new RetryDecision(retryDecision.getRemainingRetries(), stretched);
+        } else {
+            final int remainingRetries = Math.max(0, retryDecision.getRemainingRetries() - (this.budget.getRetryConsumption() - 1));
+            return new RetryDecision(remainingRetries, remainingRetries == 0 ? 0L : retryDecision.getNextRetryInterval());
+        }
+    }
+
+    public void recordSuccess(final Class<?> origin, final ExternalTask externalTask) {
+        if (this.budget.isEnabled()) {
+            this.retryBudget(origin, externalTask).recordSuccess(this.clock.getAsLong());
+        }
+    }
+
+
+    private RetryBudget retryBudget(final Class<?> origin, final ExternalTask externalTask) {
+        final String key = this.budget.getKey() == Key.HANDLER
+                ? origin.getName()
+                : Objects.toString(externalTask.getTopicName(), "");
+        return this.retryBudgets.computeIfAbsent(key, this.newRetryBudget);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetrySchedule;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe cache of compiled {@link RetrySchedule}s, keyed by the raw
+ * retry-property as found in the process-model. Usually there are only a handful of
+ * distinct retry-configs, so every failure after the first one is a plain map-lookup.
+ * If the limit is reached, an arbitrary entry is evicted before a new one is added.
+ */
+public final class RetryScheduleCache {
+
+    private final int maximumSize;
+    private final Function<String, RetrySchedule> compiler;
+    private final ConcurrentHashMap<String, RetrySchedule> schedules;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public RetryScheduleCache(final int maximumSize, final Function<String, RetrySchedule> compiler) {
+        this.maximumSize = Math.max(1, maximumSize);
+        this.compiler = compiler;
+        this.schedules = new ConcurrentHashMap<>(Math.min(this.maximumSize, 64));
+    }
+
+
+    public RetrySchedule get(final String retryProperty) {
+        final RetrySchedule cached = this.schedules.get(retryProperty);
+        if (cached != null) {
+            this.hitCount.increment();
+            return cached;
+        }
+
+        this.missCount.increment();
+        final RetrySchedule compiled = this.compiler.apply(retryProperty);
+        if (this.schedules.size() >= this.maximumSize) {
+            this.evictOne();
+        }
+        final RetrySchedule concurrent = this.schedules.putIfAbsent(retryProperty, compiled);
+        return concurrent != null ? concurrent : compiled;
+    }
+
+
+    private void evictOne() {
+        final Iterator<String> keys = this.schedules.keySet().iterator();
+        if (keys.hasNext() && this.schedules.remove(keys.next()) != null) {
+            this.evictionCount.increment();
+        }
+    }
+
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    public int size() {
+        return this.schedules.size();
+    }
+
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+
+/**
+ * Creates the services handling failures and bpmn-errors from the properties, independent of spring. The
+ * auto-configuration and the {@link de.viadee.bpm.camunda.externaltask.retry.aspect.handler.RetryingExternalTaskHandler}
+ * both create them by this factory and assemble them by {@link FailureService#builder(PropertyService)}.
+ */
+public class RetryServiceFactory {
+
+    private final ExternalTaskRetryAspectProperties properties;
+
+    public RetryServiceFactory(final ExternalTaskRetryAspectProperties properties) {
+        this.properties = properties;
+    }
+
+
+    public PropertyService propertyService(final ExceptionClassifier exceptionClassifier) {
+        return new PropertyService(this.properties, exceptionClassifier);
+    }
+
+    public ExceptionClassifier exceptionClassifier() {
+        return new ExceptionClassifier(this.properties);
+    }
+
+    /**
+     * @return the outbox, or {@link ReportOutbox#NONE} if disabled, so no file is opened
+     */
+    public ReportOutbox reportOutbox() {
+        return this.properties.getOutbox().isEnabled()
+                ? new ReportOutbox(this.properties.getOutbox())
+                : ReportOutbox.NONE;
+    }
+
+    public ReportingExecutor reportingExecutor(final ReportOutbox reportOutbox) {
+        return new ReportingExecutor(this.properties.getAsyncReporting(), reportOutbox);
+    }
+
+    public StackTraceRenderer stackTraceRenderer() {
+        return new StackTraceRenderer(this.properties.getErrorDetails());
+    }
+
+    public ErrorDetailsDeduplicator errorDetailsDeduplicator() {
+        return new ErrorDetailsDeduplicator(this.properties.getErrorDetails().getDeduplication());
+    }
+
+    public FailureLogLimiter failureLogLimiter() {
+        return new FailureLogLimiter(this.properties.getLogLimit());
+    }
+
+    public RetryBudgetService retryBudgetService() {
+        return new RetryBudgetService(this.properties.getBudget());
+    }
+
+    public CircuitBreakerService circuitBreakerService() {
+        return new CircuitBreakerService(this.properties.getCircuitBreaker());
+    }
+
+}
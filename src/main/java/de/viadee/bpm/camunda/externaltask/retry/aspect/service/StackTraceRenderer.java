@@ -0,0 +1,276 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders stack-traces as error-details. By default the full stack-trace is rendered as by
+ * {@link Throwable#printStackTrace()}. In compact mode, the format stays the same, but
+ * <ul>
+ *     <li>frames of frameworks (aop, proxies, reflection) are collapsed,</li>
+ *     <li>repeated frames (recursion) are collapsed,</li>
+ *     <li>frames per exception and the number of causes are limited,</li>
+ *     <li>and the whole text is limited in length, measured in UTF-8 bytes as stored by the engine.</li>
+ * </ul>
+ * The root cause is always rendered with all its (non-framework) frames and is kept when truncating.
+ * Rendering uses a buffer per thread, which is reused.
+ */
+public class StackTraceRenderer {
+
+    private static final String TRUNCATED = "\t... truncated\n";
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(BUFFER_SIZE));
+
+    private final ExternalTaskRetryAspectProperties.ErrorDetails properties;
+    private final String[] frameworkPackages;
+
+    public StackTraceRenderer(final ExternalTaskRetryAspectProperties.ErrorDetails properties) {
+        this.properties = properties;
+        this.frameworkPackages = properties.getFrameworkPackages().toArray(new String[0]);
+    }
+
+
+    public String render(final Throwable throwable) {
+        if (!this.properties.isCompact()) {
+            final StringWriter stackTrace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(stackTrace, true));
+            return stackTrace.getBuffer().toString();
+        }
+
+        final StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        try {
+            return this.renderCompact(throwable, out);
+        } finally {
+            if (out.capacity() > Math.max(BUFFER_SIZE, 4 * this.properties.getMaxLength())) {
+                BUFFER.remove(); // don't keep huge buffers
+            }
+        }
+    }
+
+
+    private String renderCompact(final Throwable throwable, final StringBuilder out) {
+        // cause-chain, guarded against cycles
+        final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<Throwable> chain = new ArrayList<>();
+        for (Throwable current = throwable; current != null && seen.add(current); current = current.getCause()) {
+            chain.add(current);
+        }
+
+        final int last = chain.size() - 1;
+        int rootStart = 0;
+        int omittedCauses = 0;
+        StackTraceElement[] enclosingTrace = new StackTraceElement[0];
+        for (int i = 0; i <= last; i++) {
+            final Throwable current = chain.get(i);
+            if (i > 0 && i < last && i > this.properties.getMaxCauses()) {
+                omittedCauses++;
+                continue;
+            }
+            if (i == last) {
+                if (omittedCauses > 0) {
+                    out.append("\t... ").append(omittedCauses).append(" cause(s) omitted\n");
+                }
+                rootStart = out.length();
+            }
+
+            this.appendThrowable(out, current, i == 0 ? "" : "Caused by: ", "", enclosingTrace,
+                    i == last ? Integer.MAX_VALUE : this.properties.getMaxFrames());
+            if (i == 0) {
+                this.appendSuppressed(out, current);
+            }
+            enclosingTrace = current.getStackTrace();
+        }
+
+        return this.limit(out, rootStart);
+    }
+
+    private void appendSuppressed(final StringBuilder out, final Throwable throwable) {
+        final Throwable[] suppressed = throwable.getSuppressed();
+        final int rendered = Math.min(suppressed.length, this.properties.getMaxCauses());
+        for (int i = 0; i < rendered; i++) {
+            this.appendThrowable(out, suppressed[i], "Suppressed: ", "\t", throwable.getStackTrace(), this.properties.getMaxFrames());
+        }
+        if (suppressed.length > rendered) {
+            out.append("\t... ").append(suppressed.length - rendered).append(" suppressed omitted\n");
+        }
+    }
+
+    private void appendThrowable(final StringBuilder out,
+                                 final Throwable throwable,
+                                 final String caption,
+                                 final String indent,
+                                 final StackTraceElement[] enclosingTrace,
+                                 final int maxFrames) {
+
+        out.append(indent).append(caption).append(throwable).append('\n');
+
+        // frames in common with the enclosing trace, as printStackTrace() does
+        final StackTraceElement[] trace = throwable.getStackTrace();
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        final int framesInCommon = trace.length - 1 - m;
+
+        int rendered = 0;
+        int frameworkFrames = 0;
+        int omittedFrames = 0;
+        for (int i = 0; i <= m; i++) {
+            final StackTraceElement frame = trace[i];
+            if (rendered >= maxFrames) {
+                omittedFrames++;
+                continue;
+            }
+            if (this.isFramework(frame)) {
+                frameworkFrames++;
+                continue;
+            }
+            frameworkFrames = this.appendFrameworkFrames(out, indent, frameworkFrames);
+
+            int repeated = 0;
+            while (i < m && trace[i + 1].equals(frame)) {
+                repeated++;
+                i++;
+            }
+            out.append(indent).append("\tat ").append(frame).append('\n');
+            rendered++;
+            if (repeated > 0) {
+                out.append(indent).append("\t... repeated ").append(repeated).append(" time(s)\n");
+            }
+        }
+        this.appendFrameworkFrames(out, indent, frameworkFrames);
+        if (omittedFrames > 0) {
+            out.append(indent).append("\t... ").append(omittedFrames).append(" frame(s) omitted\n");
+        }
+        if (framesInCommon > 0) {
+            out.append(indent).append("\t... ").append(framesInCommon).append(" more\n");
+        }
+    }
+
+    private int appendFrameworkFrames(final StringBuilder out, final String indent, final int frameworkFrames) {
+        if (frameworkFrames > 0) {
+            out.append(indent).append("\t... ").append(frameworkFrames).append(" framework frame(s)\n");
+        }
+        return 0;
+    }
+
+    private boolean isFramework(final StackTraceElement frame) {
+        final String className = frame.getClassName();
+        if (className.contains("$$")) {
+            return true; // generated proxies, eg. cglib or byte-buddy
+        }
+        for (final String frameworkPackage : this.frameworkPackages) {
+            if (className.startsWith(frameworkPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Truncates the text before the root cause, so the root cause is kept as long as possible.
+     */
+    private String limit(final StringBuilder out, final int rootStart) {
+        final int maxLength = this.properties.getMaxLength();
+        if (out.length() * 3L <= maxLength || utf8Length(out, 0, out.length()) <= maxLength) {
+            return out.toString(); // a char takes 3 bytes at most, a surrogate-pair 4
+        }
+
+        final int keep = maxLength - utf8Length(out, rootStart, out.length()) - TRUNCATED.length();
+        if (keep <= 0) {
+            // the root cause alone is too long, keep its beginning
+            final int end = utf8End(out, rootStart, maxLength - TRUNCATED.length());
+            return out.substring(rootStart, end) + TRUNCATED;
+        }
+        final int cut = Math.max(0, out.lastIndexOf("\n", utf8End(out, 0, keep) - 1) + 1);
+        return out.substring(0, cut) + TRUNCATED + out.substring(rootStart);
+    }
+
+    private static int utf8Length(final CharSequence text, final int start, final int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            length += utf8Length(text, i);
+            if (Character.isHighSurrogate(text.charAt(i)) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return the end of the longest text from start within the given bytes, never splitting a surrogate-pair
+     */
+    private static int utf8End(final CharSequence text, final int start, final int maxBytes) {
+        int bytes = 0;
+        int i = start;
+        while (i < text.length()) {
+            final int charBytes = utf8Length(text, i);
+            if (bytes + charBytes > maxBytes) {
+                break;
+            }
+            bytes += charBytes;
+            i += charBytes == 4 ? 2 : 1;
+        }
+        return i;
+    }
+
+    /**
+     * @return the bytes of the char at the index, 4 for a whole surrogate-pair
+     */
+    private static int utf8Length(final CharSequence text, final int index) {
+        final char c = text.charAt(index);
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800) {
+            return 2;
+        }
+        if (Character.isHighSurrogate(c) && index + 1 < text.length() && Character.isLowSurrogate(text.charAt(index + 1))) {
+            return 4;
+        }
+        return 3;
+    }
+
+}
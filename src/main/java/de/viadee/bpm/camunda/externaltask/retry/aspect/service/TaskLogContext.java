@@ -0,0 +1,104 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.slf4j.MDC;
+
+import java.util.Objects;
+
+/**
+ * Puts the fields of an external-task into the {@link MDC} while logging, so they can be indexed
+ * by the log-pipeline without parsing the message. Previous values are restored on {@link #close()}.
+ */
+public final class TaskLogContext implements AutoCloseable {
+
+    //@formatter:off
+    public static final String EXTERNAL_TASK_ID     = "externalTaskId";
+    public static final String TOPIC_NAME           = "topicName";
+    public static final String PROCESS_INSTANCE_ID  = "processInstanceId";
+    public static final String ACTIVITY_ID          = "activityId";
+    public static final String REMAINING_RETRIES    = "remainingRetries";
+    public static final String NEXT_RETRY_INTERVAL  = "nextRetryInterval";
+    //@formatter:on
+
+    private static final String[] KEYS = {
+            EXTERNAL_TASK_ID, TOPIC_NAME, PROCESS_INSTANCE_ID, ACTIVITY_ID, REMAINING_RETRIES, NEXT_RETRY_INTERVAL
+    };
+
+    private final String[] previousValues = new String[KEYS.length];
+
+    private TaskLogContext() {
+        for (int i = 0; i < KEYS.length; i++) {
+            this.previousValues[i] = MDC.get(KEYS[i]);
+        }
+    }
+
+
+    public static TaskLogContext of(final ExternalTask externalTask) {
+        final TaskLogContext taskLogContext = new TaskLogContext();
+        put(EXTERNAL_TASK_ID, externalTask.getId());
+        put(TOPIC_NAME, externalTask.getTopicName());
+        put(PROCESS_INSTANCE_ID, externalTask.getProcessInstanceId());
+        put(ACTIVITY_ID, externalTask.getActivityId());
+        return taskLogContext;
+    }
+
+    public static TaskLogContext of(final ExternalTask externalTask, final RetryDecision retryDecision) {
+        final TaskLogContext taskLogContext = of(externalTask);
+        MDC.put(REMAINING_RETRIES, Integer.toString(retryDecision.getRemainingRetries()));
+        MDC.put(NEXT_RETRY_INTERVAL, Long.toString(retryDecision.getNextRetryInterval()));
+        return taskLogContext;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < KEYS.length; i++) {
+            if (Objects.isNull(this.previousValues[i])) {
+                MDC.remove(KEYS[i]);
+            } else {
+                MDC.put(KEYS[i], this.previousValues[i]);
+            }
+        }
+    }
+
+
+    private static void put(final String key, final String value) {
+        if (Objects.isNull(value)) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, value);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.weaving;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Alternative to the proxy-based {@link ExternalTaskRetryAspect}, woven by the AspectJ-compiler or -weaver into the
+ * client's call of {@code ExternalTaskHandler.execute}. Thereby, any handler is covered, also those created with
+ * {@code new} or as lambda, without any proxy. As the weaver instantiates this aspect, the actual handling is
+ * delegated to the {@link ExternalTaskRetryAspect} configured by {@link ExternalTaskRetryWeaving}.
+ */
+@Aspect
+public class ExternalTaskRetryWeavingAspect {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExternalTaskRetryWeavingAspect.class);
+
+    private static final AtomicBoolean UNCONFIGURED_WARNED = new AtomicBoolean();
+
+    private static final AtomicReference<ExternalTaskRetryAspect> DELEGATE = new AtomicReference<>();
+
+    static void configure(final ExternalTaskRetryAspect retryAspect) {
+        DELEGATE.set(retryAspect);
+    }
+
+    /**
+     * Removes the given retry-aspect, unless another one was configured in the meantime.
+     */
+    static void release(final ExternalTaskRetryAspect retryAspect) {
+        DELEGATE.compareAndSet(retryAspect, null);
+    }
+
+    static boolean isConfigured() {
+        return Objects.nonNull(DELEGATE.get());
+    }
+
+    @Pointcut(value = "call(public void org.camunda.bpm.client.task.ExternalTaskHandler.execute(..)) " +
+                                    "&& target(externalTaskHandler) && args(externalTask, externalTaskService)",
+              argNames = "externalTaskHandler,externalTask,externalTaskService")
+    public void externalTaskHandlerCall(final ExternalTaskHandler externalTaskHandler,
+                                        final ExternalTask externalTask,
+                                        final ExternalTaskService externalTaskService) {
+    }
+
+    @AfterThrowing(pointcut = "externalTaskHandlerCall(externalTaskHandler, externalTask, externalTaskService)",
+                   throwing = "exception", argNames = "externalTaskHandler,exception,externalTask,externalTaskService")
+    public void handleErrorAfterThrown(final ExternalTaskHandler externalTaskHandler,
+                                       final Exception exception,
+                                       final ExternalTask externalTask,
+                                       final ExternalTaskService externalTaskService) {
+
+        final ExternalTaskRetryAspect retryAspect = DELEGATE.get();
+        if (Objects.isNull(retryAspect)) {
+            if (UNCONFIGURED_WARNED.compareAndSet(false, true)) {
+                LOGGER.warn("Woven, but not configured: failures are not handled, set {}=true",
+                        "de.viadee.bpm.camunda.external-task.retry-config.weaving.enabled");
+            }
+            return;
+        }
+        // a proxied handler is logged as the handler's class
+        retryAspect.handleError(ClassUtils.getUserClass(externalTaskHandler), exception, externalTask, externalTaskService);
+    }
+}
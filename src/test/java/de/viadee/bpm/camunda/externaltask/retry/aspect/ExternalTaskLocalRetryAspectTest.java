@@ -0,0 +1,172 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class ExternalTaskLocalRetryAspectTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    private ExternalTaskRetryAspectProperties.LocalRetry properties;
+    private ExternalTaskLocalRetryAspect localRetryAspect;
+
+
+    @BeforeEach
+    public void initLocalRetryAspect() {
+        when(this.joinPoint.getTarget()).thenReturn(new Object());
+        when(this.externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + 60_000L));
+
+        this.properties = new ExternalTaskRetryAspectProperties.LocalRetry();
+        this.properties.setEnabled(true);
+        this.properties.setMaxAttempts(3);
+        this.properties.setBackoff(Duration.ofMillis(1));
+        this.localRetryAspect = new ExternalTaskLocalRetryAspect(this.properties);
+    }
+
+
+    @Test
+    public void transientErrorTest() throws Throwable {
+        when(this.joinPoint.proceed()).thenThrow(new RuntimeException("glitch")).thenReturn(null);
+
+        this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService);
+
+        verify(this.joinPoint, times(2)).proceed();
+    }
+
+
+    @Test
+    public void attemptsExhaustedTest() throws Throwable {
+        final RuntimeException lastError = new RuntimeException("third");
+        when(this.joinPoint.proceed())
+                .thenThrow(new RuntimeException("first"))
+                .thenThrow(new RuntimeException("second"))
+                .thenThrow(lastError);
+
+        final RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService));
+
+        assertEquals(lastError, thrown);
+        verify(this.joinPoint, times(3)).proceed();
+    }
+
+
+    @Test
+    public void singleAttemptTest() throws Throwable {
+        this.properties.setMaxAttempts(1);
+        when(this.joinPoint.proceed()).thenThrow(new RuntimeException("glitch")).thenReturn(null);
+
+        assertThrows(RuntimeException.class,
+                () -> this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService));
+
+        verify(this.joinPoint, times(1)).proceed();
+    }
+
+
+    @Test
+    public void intendedErrorsNotRetriedTest() throws Throwable {
+        when(this.joinPoint.proceed())
+                .thenThrow(new ExternalTaskBusinessError("code"))
+                .thenThrow(new InstantIncidentException());
+
+        assertThrows(ExternalTaskBusinessError.class,
+                () -> this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService));
+        assertThrows(InstantIncidentException.class,
+                () -> this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService));
+
+        verify(this.joinPoint, times(2)).proceed();
+    }
+
+
+    @Test
+    public void lockAlmostExpiredTest() throws Throwable {
+        when(this.externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + 5_000L));
+        when(this.joinPoint.proceed()).thenThrow(new RuntimeException("glitch")).thenReturn(null);
+
+        assertThrows(RuntimeException.class,
+                () -> this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService));
+
+        verify(this.joinPoint, times(1)).proceed();
+        verify(this.externalTaskService, never()).extendLock(any(ExternalTask.class), anyLong());
+    }
+
+
+    @Test
+    public void lockExtendedTest() throws Throwable {
+        this.properties.setLockExtension(Duration.ofMinutes(1));
+        when(this.externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + 5_000L));
+        when(this.joinPoint.proceed()).thenThrow(new RuntimeException("glitch")).thenReturn(null);
+
+        this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService);
+
+        verify(this.joinPoint, times(2)).proceed();
+        verify(this.externalTaskService, times(1)).extendLock(this.externalTask, 60_000L);
+    }
+
+
+    @Test
+    public void lockExtensionFailedTest() throws Throwable {
+        this.properties.setLockExtension(Duration.ofMinutes(1));
+        when(this.externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + 5_000L));
+        when(this.joinPoint.proceed()).thenThrow(new RuntimeException("glitch")).thenReturn(null);
+        doThrow(new IllegalStateException("lock lost")).when(this.externalTaskService).extendLock(this.externalTask, 60_000L);
+
+        assertThrows(RuntimeException.class,
+                () -> this.localRetryAspect.retryLocally(this.joinPoint, this.externalTask, this.externalTaskService));
+
+        verify(this.joinPoint, times(1)).proceed();
+    }
+
+}
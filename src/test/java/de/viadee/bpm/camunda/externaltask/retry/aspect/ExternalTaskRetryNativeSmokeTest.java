@@ -0,0 +1,232 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectAutoConfiguration;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.handler.RetryingExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.camunda.bpm.client.task.impl.ExternalTaskImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs on the jvm as well as within a native-image ({@code mvn -Pnative test}), therefore without mocks
+ * and without any external service.
+ */
+@ContextConfiguration(classes = {ExternalTaskRetryAspectAutoConfiguration.class, ExternalTaskRetryNativeSmokeTest.HandlerConfiguration.class})
+@ExtendWith(SpringExtension.class)
+public class ExternalTaskRetryNativeSmokeTest {
+
+    private final ExternalTaskImpl externalTask = new ExternalTaskImpl();
+    private final RecordingExternalTaskService externalTaskService = new RecordingExternalTaskService();
+
+    @Autowired
+    private FailingHandler failingHandler;
+
+
+    @BeforeEach
+    public void initTestData() {
+        this.externalTask.setId("taskId");
+        this.externalTask.setTopicName("topic");
+    }
+
+
+    @Test
+    public void proxiedHandlerTest() {
+        assertTrue(AopUtils.isAopProxy(this.failingHandler));
+
+        assertThrows(IllegalStateException.class, () -> this.failingHandler.execute(this.externalTask, this.externalTaskService));
+
+        assertEquals(List.of("handleFailure: IllegalStateException: failure, 3, 300000"), this.externalTaskService.reports);
+    }
+
+
+    @Test
+    public void proxiedBusinessErrorTest() {
+        this.externalTask.setTopicName("business-error");
+
+        assertThrows(ExternalTaskBusinessError.class, () -> this.failingHandler.execute(this.externalTask, this.externalTaskService));
+
+        assertEquals(List.of("handleBpmnError: code, message"), this.externalTaskService.reports);
+    }
+
+
+    @Test
+    public void decoratedHandlerTest() {
+        try (RetryingExternalTaskHandler retryingHandler = RetryingExternalTaskHandler.builder(new FailingHandler())
+                .defaultBehavior("R5/PT1M")
+                .build()) {
+
+            retryingHandler.execute(this.externalTask, this.externalTaskService);
+        }
+
+        assertEquals(List.of("handleFailure: IllegalStateException: failure, 5, 60000"), this.externalTaskService.reports);
+    }
+
+
+    @Configuration
+    public static class HandlerConfiguration {
+
+        @Bean
+        public FailingHandler failingHandler() {
+            return new FailingHandler();
+        }
+    }
+
+
+    public static class FailingHandler implements ExternalTaskHandler {
+
+        @Override
+        public void execute(final ExternalTask externalTask, final ExternalTaskService externalTaskService) {
+            if ("business-error".equals(externalTask.getTopicName())) {
+                throw new ExternalTaskBusinessError("code", "message");
+            }
+            throw new IllegalStateException("failure");
+        }
+    }
+
+
+    private static class RecordingExternalTaskService implements ExternalTaskService {
+
+        private final List<String> reports = new ArrayList<>();
+
+        @Override
+        public void handleFailure(final ExternalTask externalTask, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+            this.reports.add("handleFailure: " + errorMessage + ", " + retries + ", " + retryTimeout);
+        }
+
+        @Override
+        public void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+            this.reports.add("handleFailure: " + errorMessage + ", " + retries + ", " + retryTimeout);
+        }
+
+        @Override
+        public void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout,
+                                  final Map<String, Object> variables, final Map<String, Object> localVariables) {
+            this.reports.add("handleFailure: " + errorMessage + ", " + retries + ", " + retryTimeout);
+        }
+
+        @Override
+        public void handleBpmnError(final ExternalTask externalTask, final String errorCode) {
+            this.reports.add("handleBpmnError: " + errorCode);
+        }
+
+        @Override
+        public void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage) {
+            this.reports.add("handleBpmnError: " + errorCode + ", " + errorMessage);
+        }
+
+        @Override
+        public void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+            this.reports.add("handleBpmnError: " + errorCode + ", " + errorMessage);
+        }
+
+        @Override
+        public void handleBpmnError(final String externalTaskId, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+            this.reports.add("handleBpmnError: " + errorCode + ", " + errorMessage);
+        }
+
+        @Override
+        public void lock(final String externalTaskId, final long lockDuration) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void lock(final ExternalTask externalTask, final long lockDuration) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unlock(final ExternalTask externalTask) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void complete(final ExternalTask externalTask) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setVariables(final String processInstanceId, final Map<String, Object> variables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setVariables(final ExternalTask externalTask, final Map<String, Object> variables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void complete(final ExternalTask externalTask, final Map<String, Object> variables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void complete(final ExternalTask externalTask, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void complete(final String externalTaskId, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void extendLock(final ExternalTask externalTask, final long newDuration) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void extendLock(final String externalTaskId, final long newDuration) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ErrorHandlingService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.ExecutionTimer;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.LatencyHistogramRecorder;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryBudgetService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ExternalTaskTimingAspectTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    private ExternalTaskRetryAspectProperties properties;
+    private LatencyHistogramRecorder executionRecorder;
+    private ExecutionTimer executionTimer;
+    private ExternalTaskTimingAspect timingAspect;
+
+
+    @BeforeEach
+    public void initTimingAspect() {
+        when(this.joinPoint.getTarget()).thenReturn(new Object());
+        when(this.externalTask.getTopicName()).thenReturn("topic");
+
+        this.properties = new ExternalTaskRetryAspectProperties();
+        this.properties.setDefaultBehavior("R3/PT5M");
+        this.executionRecorder = new LatencyHistogramRecorder(this.properties.getTiming());
+        this.executionTimer = new ExecutionTimer(this.executionRecorder);
+        this.timingAspect = new ExternalTaskTimingAspect(this.executionTimer);
+    }
+
+
+    @Test
+    public void successTest() throws Throwable {
+        when(this.joinPoint.proceed()).thenReturn(null);
+
+        this.timingAspect.measureExecution(this.joinPoint, this.externalTask, this.externalTaskService);
+
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.SUCCESS));
+        assertNull(this.executionRecorder.getHistogram(Object.class, "topic", ExecutionRecorder.Outcome.RETRY));
+    }
+
+
+    @Test
+    public void retryTest() throws Throwable {
+        when(this.externalTask.getRetries()).thenReturn(null); // 1st try
+
+        this.runFailure(new RuntimeException("failure"), FailureService.builder(new PropertyService(this.properties)).build());
+
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.RETRY));
+    }
+
+
+    @Test
+    public void retriesExhaustedTest() throws Throwable {
+        when(this.externalTask.getRetries()).thenReturn(1);
+
+        this.runFailure(new RuntimeException("failure"), FailureService.builder(new PropertyService(this.properties)).build());
+
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.INCIDENT));
+    }
+
+
+    @Test
+    public void budgetExhaustedTest() throws Throwable {
+        // the exhausted retry-budget consumes the last retry, which is recorded as incident
+        when(this.externalTask.getRetries()).thenReturn(2);
+        this.properties.getBudget().setEnabled(true);
+        this.properties.getBudget().setMinimumRetries(0);
+        this.properties.getBudget().setRatio(0.0);
+        this.properties.getBudget().setStrategy(RetryBudgetService.Strategy.CONSUME);
+
+        this.runFailure(new RuntimeException("failure"), FailureService.builder(new PropertyService(this.properties))
+                .retryBudgetService(new RetryBudgetService(this.properties.getBudget()))
+                .build());
+
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.INCIDENT));
+        assertNull(this.executionRecorder.getHistogram(Object.class, "topic", ExecutionRecorder.Outcome.RETRY));
+    }
+
+
+    @Test
+    public void intendedErrorsTest() throws Throwable {
+        final FailureService failureService = FailureService.builder(new PropertyService(this.properties)).build();
+
+        this.runFailure(new ExternalTaskBusinessError("code"), failureService);
+        this.runFailure(new InstantIncidentException(), failureService);
+
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.BUSINESS_ERROR));
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.INCIDENT));
+    }
+
+
+    @Test
+    public void heldUntilHandledTest() throws Throwable {
+        final RuntimeException exception = new RuntimeException("failure");
+        when(this.joinPoint.proceed()).thenThrow(exception);
+
+        assertThrows(RuntimeException.class, () -> this.timingAspect.measureExecution(this.joinPoint, this.externalTask, this.externalTaskService));
+        assertTrue(this.executionRecorder.getHistograms().isEmpty());
+
+        this.executionTimer.recordHeld(Object.class, this.externalTask, ExecutionRecorder.Outcome.RETRY);
+        this.executionTimer.recordHeld(Object.class, this.externalTask, ExecutionRecorder.Outcome.RETRY);
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.RETRY));
+    }
+
+
+    @Test
+    public void unhandledErrorTest() throws Throwable {
+        when(this.joinPoint.proceed()).thenThrow(new StackOverflowError());
+
+        assertThrows(StackOverflowError.class, () -> this.timingAspect.measureExecution(this.joinPoint, this.externalTask, this.externalTaskService));
+
+        assertEquals(1L, this.count(ExecutionRecorder.Outcome.RETRY));
+    }
+
+
+    private void runFailure(final Exception exception, final FailureService failureService) throws Throwable {
+        doThrow(exception).when(this.joinPoint).proceed();
+
+        assertThrows(exception.getClass(), () -> this.timingAspect.measureExecution(this.joinPoint, this.externalTask, this.externalTaskService));
+        new ErrorHandlingService(new BusinessErrorService(), failureService, this.executionTimer)
+                .handleError(Object.class, exception, this.externalTask, this.externalTaskService);
+    }
+
+    private long count(final ExecutionRecorder.Outcome outcome) {
+        return this.executionRecorder.getHistogram(Object.class, "topic", outcome).getCount();
+    }
+
+}
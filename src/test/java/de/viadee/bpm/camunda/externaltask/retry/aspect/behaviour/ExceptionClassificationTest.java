@@ -0,0 +1,162 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.behaviour;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.BaseTest;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskCircuitBreakerAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.CircuitBreakerService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.FileNotFoundException;
+import java.net.SocketTimeoutException;
+import java.nio.file.NoSuchFileException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+@TestPropertySource(properties = {
+        "de.viadee.bpm.camunda.external-task.retry-config.classification.behavior-by-exception-type.[java.net.SocketTimeoutException]=R5/PT1M",
+        "de.viadee.bpm.camunda.external-task.retry-config.classification.behavior-by-exception-type.[java.io.IOException]=R2/PT10M",
+        "de.viadee.bpm.camunda.external-task.retry-config.classification.behavior-by-exception-type.[java.io.FileNotFoundException]=BPMN_ERROR:not-found",
+        "de.viadee.bpm.camunda.external-task.retry-config.classification.behavior-by-exception-type.[IllegalArgumentException]=INSTANT_INCIDENT",
+        "de.viadee.bpm.camunda.external-task.retry-config.circuit-breaker.enabled=true",
+        "de.viadee.bpm.camunda.external-task.retry-config.circuit-breaker.failure-threshold=1"
+})
+public class ExceptionClassificationTest extends BaseTest {
+
+    private final ProceedingJoinPoint proceedingJoinPoint = mock(ProceedingJoinPoint.class);
+
+    @Autowired
+    private ExternalTaskCircuitBreakerAspect circuitBreakerAspect;
+
+    @Autowired
+    private CircuitBreakerService circuitBreakerService;
+
+    @BeforeEach
+    public void initTask() {
+        when(this.externalTask.getRetries()).thenReturn(null);
+    }
+
+
+    @Test
+    public void retryConfigTest() {
+        this.runFailureTest(new SocketTimeoutException("timeout"));
+        this.assertRemainingRetries(5);
+        this.assertNextRetryInterval(MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void retryConfigLimitsRetriesTest() {
+        when(this.externalTask.getRetries()).thenReturn(10);
+        this.runFailureTest(new SocketTimeoutException("timeout"));
+        this.assertRemainingRetries(5);
+    }
+
+    @Test
+    public void superclassTest() {
+        this.runFailureTest(new NoSuchFileException("file"));
+        this.assertRemainingRetries(2);
+        this.assertNextRetryInterval(10 * MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void causeTest() {
+        this.runFailureTest(new IllegalStateException("wrapped", new SocketTimeoutException("timeout")));
+        this.assertRemainingRetries(5);
+        this.assertNextRetryInterval(MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void instantIncidentBySimpleNameTest() {
+        this.runFailureTest(new NumberFormatException("not a number"));
+        this.assertNoRemainingRetries();
+        this.assertNextRetryInterval(0L);
+    }
+
+    @Test
+    public void bpmnErrorTest() {
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, new FileNotFoundException("missing"), this.externalTask, this.externalTaskService);
+
+        this.verifyNoFailure();
+        this.verifyBpmnErrorWithoutVariables();
+        this.assertBpmnErrorCode("not-found");
+        this.assertErrorMessage("missing");
+    }
+
+    @Test
+    public void bpmnErrorKeepsCircuitBreakerClosedTest() throws Throwable {
+        final FileNotFoundException exception = new FileNotFoundException("missing");
+        when(this.proceedingJoinPoint.getTarget()).thenReturn(this);
+        when(this.proceedingJoinPoint.proceed()).thenThrow(exception);
+
+        assertThrows(FileNotFoundException.class,
+                () -> this.circuitBreakerAspect.guardExecution(this.proceedingJoinPoint, this.externalTask, this.externalTaskService));
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, exception, this.externalTask, this.externalTaskService);
+
+        assertFalse(this.circuitBreakerService.isOpen(this.getClass()));
+        this.verifyNoFailure();
+        this.verifyBpmnErrorWithoutVariables();
+        this.assertBpmnErrorCode("not-found");
+    }
+
+    @Test
+    public void businessErrorKeepsMeaningTest() {
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, new CustomTestBusinessErrorType("own-code"), this.externalTask, this.externalTaskService);
+
+        this.verifyNoFailure();
+        this.verifyBpmnErrorWithoutVariables();
+        this.assertBpmnErrorCode("own-code");
+    }
+
+    @Test
+    public void unclassifiedTest() {
+        this.runFailureTest(new RuntimeException("failure"));
+        this.assertRemainingRetries(3);
+        this.assertNextRetryInterval(5 * MINUTES_TO_MILLIS);
+    }
+
+
+    private void runFailureTest(final Exception exception) {
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, exception, this.externalTask, this.externalTaskService);
+
+        this.verifyNoBpmnErrorAtAll();
+        this.verifyHandleFailure();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.behaviour;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+
+import static org.mockito.Mockito.when;
+
+
+public class ExponentialBackoffTest extends BaseTest {
+
+    //                                          1s, 2s, 4s, 8s, 16s, 32s, 60s, 60s
+    private static final String RETRY_BACKOFF = "R8/PT1S*2/PT1M";
+
+    @Test
+    public void firstFailureTest() {
+        this.runTest(null);
+        this.assertNextRetryInterval(SECONDS_TO_MILLIS);
+    }
+
+    @Test
+    public void secondFailureTest() {
+        this.runTest(8);
+        this.assertNextRetryInterval(2 * SECONDS_TO_MILLIS);
+    }
+
+    @Test
+    public void fifthFailureTest() {
+        this.runTest(5);
+        this.assertNextRetryInterval(16 * SECONDS_TO_MILLIS);
+    }
+
+    @Test
+    public void maximumIntervalTest() {
+        this.runTest(2);
+        this.assertNextRetryInterval(MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void lastFailureTest() {
+        this.runTest(1);
+        this.assertNextRetryInterval(0);
+    }
+
+    @Test
+    public void decimalMultiplierTest() {
+        when(this.externalTask.getRetries()).thenReturn(3);
+        when(this.externalTask.getExtensionProperty(this.properties.getIdentifier())).thenReturn("R3/PT1M*1.5/PT1H");
+
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, new RuntimeException(), this.externalTask, this.externalTaskService);
+
+        this.verifyHandleFailure();
+        this.assertRemainingRetries(2);
+        this.assertNextRetryInterval(90 * SECONDS_TO_MILLIS);
+    }
+
+
+    public void runTest(final Integer retries) {
+        // prepare
+        when(this.externalTask.getRetries()).thenReturn(retries);
+        when(this.externalTask.getExtensionProperty(this.properties.getIdentifier())).thenReturn(RETRY_BACKOFF);
+
+        // test
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, new RuntimeException(), this.externalTask, this.externalTaskService);
+
+        // verify
+        this.verifyNoBpmnErrorAtAll();
+        this.verifyHandleFailure();
+
+        // assert
+        if (Objects.isNull(retries)) {
+            this.assertRemainingRetries(8);
+        } else {
+            this.assertRemainingRetries(retries - 1);
+        }
+    }
+
+}
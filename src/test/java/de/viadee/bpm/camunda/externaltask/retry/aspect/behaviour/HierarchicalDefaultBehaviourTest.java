@@ -0,0 +1,127 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.behaviour;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.BaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.mockito.Mockito.when;
+
+
+@TestPropertySource(properties = {
+        "de.viadee.bpm.camunda.external-task.retry-config.default-behavior=R2/PT2M",
+        "de.viadee.bpm.camunda.external-task.retry-config.default-behavior-by-topic.slow-topic=R5/PT1H",
+        "de.viadee.bpm.camunda.external-task.retry-config.default-behavior-by-topic.invalid-topic=invld!",
+        "de.viadee.bpm.camunda.external-task.retry-config.default-behavior-by-process-definition-key.order-process=R4/PT4M",
+        "de.viadee.bpm.camunda.external-task.retry-config.default-behavior-by-tenant.tenant-a=R6/PT6M"
+})
+public class HierarchicalDefaultBehaviourTest extends BaseTest {
+
+    @BeforeEach
+    public void initTask() {
+        when(this.externalTask.getRetries()).thenReturn(null);
+        when(this.externalTask.getTopicName()).thenReturn("slow-topic");
+        when(this.externalTask.getProcessDefinitionKey()).thenReturn("order-process");
+        when(this.externalTask.getTenantId()).thenReturn("tenant-a");
+    }
+
+
+    @Test
+    public void retryConfigWinsTest() {
+        when(this.externalTask.getExtensionProperty(this.properties.getIdentifier())).thenReturn("R1/PT1M");
+        this.runTest();
+        this.assertRemainingRetries(1);
+        this.assertNextRetryInterval(MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void topicTest() {
+        this.runTest();
+        this.assertRemainingRetries(5);
+        this.assertNextRetryInterval(HOURS_TO_MILLIS);
+    }
+
+    @Test
+    public void invalidRetryConfigUsesTopicTest() {
+        when(this.externalTask.getExtensionProperty(this.properties.getIdentifier())).thenReturn("invld!");
+        this.runTest();
+        this.assertRemainingRetries(5);
+        this.assertNextRetryInterval(HOURS_TO_MILLIS);
+    }
+
+    @Test
+    public void processDefinitionKeyTest() {
+        when(this.externalTask.getTopicName()).thenReturn("another-topic");
+        this.runTest();
+        this.assertRemainingRetries(4);
+        this.assertNextRetryInterval(4 * MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void tenantTest() {
+        when(this.externalTask.getTopicName()).thenReturn("another-topic");
+        when(this.externalTask.getProcessDefinitionKey()).thenReturn("another-process");
+        this.runTest();
+        this.assertRemainingRetries(6);
+        this.assertNextRetryInterval(6 * MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void globalDefaultTest() {
+        when(this.externalTask.getTopicName()).thenReturn("another-topic");
+        when(this.externalTask.getProcessDefinitionKey()).thenReturn(null);
+        when(this.externalTask.getTenantId()).thenReturn(null);
+        this.runTest();
+        this.assertRemainingRetries(2);
+        this.assertNextRetryInterval(2 * MINUTES_TO_MILLIS);
+    }
+
+    @Test
+    public void invalidTopicDefaultTest() {
+        // invalid default for topic -> global default
+        when(this.externalTask.getTopicName()).thenReturn("invalid-topic");
+        this.runTest();
+        this.assertRemainingRetries(2);
+        this.assertNextRetryInterval(2 * MINUTES_TO_MILLIS);
+    }
+
+
+    private void runTest() {
+        this.externalTaskRetryAspect.handleErrorAfterThrown(this.joinPoint, new RuntimeException(), this.externalTask, this.externalTaskService);
+
+        this.verifyNoBpmnErrorAtAll();
+        this.verifyHandleFailure();
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskTimeoutAspect;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.ReflectionHintsPredicates;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ExternalTaskRetryRuntimeHintsTest {
+
+    private final ReflectionHintsPredicates reflection = RuntimeHintsPredicates.reflection();
+    private RuntimeHints hints;
+
+
+    @BeforeEach
+    public void registerHints() {
+        this.hints = new RuntimeHints();
+        new ExternalTaskRetryRuntimeHints().registerHints(this.hints, this.getClass().getClassLoader());
+    }
+
+
+    @Test
+    public void importedTest() {
+        final ImportRuntimeHints importRuntimeHints = ExternalTaskRetryAspectAutoConfiguration.class.getAnnotation(ImportRuntimeHints.class);
+
+        assertTrue(Arrays.asList(importRuntimeHints.value()).contains(ExternalTaskRetryRuntimeHints.class));
+    }
+
+
+    @Test
+    public void propertiesTest() {
+        assertTrue(this.reflection.onMethod(ExternalTaskRetryAspectProperties.class, "setDefaultBehavior").invoke().test(this.hints));
+        assertTrue(this.reflection.onMethod(ExternalTaskRetryAspectProperties.Timeout.class, "setTimeoutByTopic").invoke().test(this.hints));
+        assertTrue(this.reflection.onMethod(ExternalTaskRetryAspectProperties.LockWatchdog.class, "setSafetyMargin").invoke().test(this.hints));
+    }
+
+
+    @Test
+    public void aspectsTest() {
+        assertTrue(this.reflection.onMethod(ExternalTaskRetryAspect.class, "handleErrorAfterThrown").invoke().test(this.hints));
+        assertTrue(this.reflection.onMethod(ExternalTaskTimeoutAspect.class, "limitExecution").invoke().test(this.hints));
+
+        for (final Class<?> aspect : ExternalTaskRetryRuntimeHints.ASPECTS) {
+            assertTrue(this.reflection.onType(aspect).withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS).test(this.hints), aspect.getName());
+        }
+    }
+
+
+    @Test
+    public void pointcutTypesTest() {
+        assertTrue(this.reflection.onType(ExternalTaskHandler.class).withMemberCategory(MemberCategory.INTROSPECT_PUBLIC_METHODS).test(this.hints));
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.config;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class RetryConfigValidatorTest {
+
+    private ExternalTaskRetryAspectProperties properties;
+
+
+    @BeforeEach
+    public void initProperties() {
+        this.properties = new ExternalTaskRetryAspectProperties();
+        this.properties.getValidation().setEnabled(true);
+        this.properties.getValidation().setLocations(List.of("classpath:bpmn/retry-config-validation.bpmn"));
+    }
+
+
+    @Test
+    public void reportsInvalidRetryConfigTest() {
+        final List<String> invalidRetryConfigs = this.validator(new PropertyService(this.properties)).validate();
+
+        assertEquals(1, invalidRetryConfigs.size());
+        assertTrue(invalidRetryConfigs.get(0).contains("'R3/PT3D'"));
+        assertTrue(invalidRetryConfigs.get(0).contains("'InvalidTask'"));
+    }
+
+
+    @Test
+    public void reportsInvalidDefaultBehaviorTest() {
+        this.properties.setDefaultBehavior("R3/PT1D");
+
+        final List<String> invalidRetryConfigs = this.validator(new PropertyService(this.properties)).validate();
+
+        assertEquals(2, invalidRetryConfigs.size());
+        assertTrue(invalidRetryConfigs.get(0).contains("default-behavior"));
+    }
+
+
+    @Test
+    public void preCompilesRetryConfigsTest() {
+        final PropertyService propertyService = new PropertyService(this.properties);
+
+        this.validator(propertyService).validate();
+
+        assertEquals(3, propertyService.getRetryScheduleCache().size());
+        assertEquals(5, propertyService.retrySchedule("R5/PT1M").getRetries());
+        assertEquals(3, propertyService.getRetryScheduleCache().getMissCount());
+    }
+
+
+    @Test
+    public void failFastTest() {
+        final RetryConfigValidator retryConfigValidator = this.validator(new PropertyService(this.properties));
+        assertDoesNotThrow(retryConfigValidator::afterPropertiesSet);
+
+        this.properties.getValidation().setFailFast(true);
+        assertThrows(IllegalStateException.class, retryConfigValidator::afterPropertiesSet);
+    }
+
+
+    private RetryConfigValidator validator(final PropertyService propertyService) {
+        return new RetryConfigValidator(this.properties, propertyService, new PathMatchingResourcePatternResolver());
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.handler;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.RetryMetrics;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+
+public class RetryingExternalTaskHandlerTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private final RetryMetrics retryMetrics = mock(RetryMetrics.class);
+    private RetryingExternalTaskHandler retryingHandler;
+
+
+    @BeforeEach
+    public void initRetryingHandler() {
+        when(this.externalTask.getId()).thenReturn("taskId");
+        when(this.externalTask.getRetries()).thenReturn(null); // 1st try
+        this.retryingHandler = RetryingExternalTaskHandler.builder(new FailingHandler())
+                .defaultBehavior("R5/PT1M")
+                .retryMetrics(this.retryMetrics)
+                .build();
+    }
+
+    @AfterEach
+    public void closeRetryingHandler() {
+        this.retryingHandler.close();
+    }
+
+
+    @Test
+    public void successTest() {
+        this.retryingHandler.decorate((externalTask, externalTaskService) -> externalTaskService.complete(externalTask))
+                .execute(this.externalTask, this.externalTaskService);
+
+        verify(this.externalTaskService).complete(this.externalTask);
+        verifyNoInteractions(this.retryMetrics);
+    }
+
+
+    @Test
+    public void failureTest() {
+        when(this.externalTask.getVariable("failure")).thenReturn(new RuntimeException("failure"));
+
+        assertDoesNotThrow(() -> this.retryingHandler.execute(this.externalTask, this.externalTaskService));
+
+        verify(this.externalTaskService).handleFailure(eq(this.externalTask), eq("RuntimeException: failure"),
+                anyString(), eq(5), eq(60 * 1000L));
+        verify(this.retryMetrics).recordFailure(eq(FailingHandler.class), eq(this.externalTask), any(), any(), eq(false));
+    }
+
+
+    @Test
+    public void instantIncidentTest() {
+        when(this.externalTask.getVariable("failure")).thenReturn(new InstantIncidentException("incident"));
+
+        this.retryingHandler.execute(this.externalTask, this.externalTaskService);
+
+        verify(this.externalTaskService).handleFailure(eq(this.externalTask), eq("InstantIncident: incident"),
+                anyString(), eq(0), eq(0L));
+    }
+
+
+    @Test
+    public void businessErrorTest() {
+        when(this.externalTask.getVariable("failure")).thenReturn(new ExternalTaskBusinessError("code", "message", Map.of("key", "value")));
+
+        this.retryingHandler.execute(this.externalTask, this.externalTaskService);
+
+        verify(this.externalTaskService).handleBpmnError(this.externalTask, "code", "message", Map.of("key", "value"));
+    }
+
+
+    @Test
+    public void errorTest() {
+        when(this.externalTask.getVariable("failure")).thenReturn(new AssertionError("error"));
+
+        assertThrows(AssertionError.class, () -> this.retryingHandler.execute(this.externalTask, this.externalTaskService));
+
+        verifyNoInteractions(this.externalTaskService);
+    }
+
+
+    @Test
+    public void propertiesTest() {
+        when(this.externalTask.getVariable("failure")).thenReturn(new RuntimeException("failure"));
+        try (RetryingExternalTaskHandler customized = RetryingExternalTaskHandler.builder(new FailingHandler())
+                .properties(properties -> properties.setDefaultBehavior("R2/PT5M"))
+                .build()) {
+
+            customized.execute(this.externalTask, this.externalTaskService);
+        }
+
+        verify(this.externalTaskService).handleFailure(eq(this.externalTask), eq("RuntimeException: failure"),
+                anyString(), eq(2), eq(5 * 60 * 1000L));
+    }
+
+
+    @Test
+    public void outboxTest(@TempDir final Path directory) {
+        final Path file = directory.resolve("outbox.dat");
+        try (RetryingExternalTaskHandler withoutOutbox = RetryingExternalTaskHandler.builder(new FailingHandler())
+                .properties(properties -> properties.getOutbox().setFile(file.toString()))
+                .build()) {
+
+            assertFalse(Files.exists(file));
+        }
+
+        try (RetryingExternalTaskHandler withOutbox = RetryingExternalTaskHandler.builder(new FailingHandler())
+                .properties(properties -> {
+                    properties.getOutbox().setEnabled(true);
+                    properties.getOutbox().setFile(file.toString());
+                })
+                .build()) {
+
+            assertTrue(Files.exists(file));
+        }
+    }
+
+
+    @Test
+    public void decorateTest() {
+        final ExternalTaskHandler anotherHandler = (externalTask, externalTaskService) -> { };
+
+        assertSame(anotherHandler, this.retryingHandler.decorate(anotherHandler).getDelegate());
+    }
+
+
+    public static class FailingHandler implements ExternalTaskHandler {
+
+        @Override
+        public void execute(final ExternalTask externalTask, final ExternalTaskService externalTaskService) {
+            final Throwable failure = externalTask.getVariable("failure");
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+
+}
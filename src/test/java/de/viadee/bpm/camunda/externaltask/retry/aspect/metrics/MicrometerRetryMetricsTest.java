@@ -0,0 +1,121 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.metrics;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class MicrometerRetryMetricsTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private SimpleMeterRegistry meterRegistry;
+    private MicrometerRetryMetrics retryMetrics;
+
+
+    @BeforeEach
+    public void initRetryMetrics() {
+        when(this.externalTask.getTopicName()).thenReturn("topic");
+        this.meterRegistry = new SimpleMeterRegistry();
+        final ExternalTaskRetryAspectProperties.Metrics properties = new ExternalTaskRetryAspectProperties.Metrics();
+        properties.setMaxTagValues(2);
+        this.retryMetrics = new MicrometerRetryMetrics(this.meterRegistry, properties);
+    }
+
+
+    @Test
+    public void retryTest() {
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalStateException(), new RetryDecision(2, 5000L), false);
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalStateException(), new RetryDecision(1, 7000L), false);
+
+        assertEquals(2.0, this.counter(MicrometerRetryMetrics.FAILURES, IllegalStateException.class.getName()));
+        assertEquals(2L, this.meterRegistry.get(MicrometerRetryMetrics.RETRY_INTERVAL).summary().count());
+        assertEquals(12000.0, this.meterRegistry.get(MicrometerRetryMetrics.RETRY_INTERVAL).summary().totalAmount());
+        assertEquals(1.0, this.meterRegistry.get(MicrometerRetryMetrics.REMAINING_RETRIES)
+                .tag("topic", "topic").tag("handler", Object.class.getName()).gauge().value());
+    }
+
+
+    @Test
+    public void incidentTest() {
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalStateException(), new RetryDecision(0, 0L), false);
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalStateException(), RetryDecision.INSTANT_INCIDENT, true);
+
+        assertEquals(1.0, this.meterRegistry.get(MicrometerRetryMetrics.INCIDENTS).tag("reason", "retries-exhausted").counter().count());
+        assertEquals(1.0, this.meterRegistry.get(MicrometerRetryMetrics.INCIDENTS).tag("reason", "instant").counter().count());
+        assertEquals(0L, this.meterRegistry.get(MicrometerRetryMetrics.RETRY_INTERVAL).summary().count());
+    }
+
+
+    @Test
+    public void businessErrorTest() {
+        this.retryMetrics.recordBusinessError(Object.class, this.externalTask, new ExternalTaskBusinessError("code", "message"));
+        assertEquals(1.0, this.counter(MicrometerRetryMetrics.BUSINESS_ERRORS, ExternalTaskBusinessError.class.getName()));
+    }
+
+
+    @Test
+    public void boundedTagValuesTest() {
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalStateException(), new RetryDecision(2, 0L), false);
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalArgumentException(), new RetryDecision(2, 0L), false);
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new UnsupportedOperationException(), new RetryDecision(2, 0L), false);
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new ArithmeticException(), new RetryDecision(2, 0L), false);
+
+        assertEquals(1.0, this.counter(MicrometerRetryMetrics.FAILURES, IllegalArgumentException.class.getName()));
+        assertEquals(2.0, this.counter(MicrometerRetryMetrics.FAILURES, MicrometerRetryMetrics.OTHER));
+        assertEquals(3, this.meterRegistry.get(MicrometerRetryMetrics.FAILURES).counters().size());
+    }
+
+
+    @Test
+    public void unknownTopicTest() {
+        when(this.externalTask.getTopicName()).thenReturn(null);
+        this.retryMetrics.recordFailure(Object.class, this.externalTask, new IllegalStateException(), new RetryDecision(2, 0L), false);
+        assertNotNull(this.meterRegistry.get(MicrometerRetryMetrics.FAILURES).tag("topic", MicrometerRetryMetrics.UNKNOWN).counter());
+    }
+
+
+    private double counter(final String name, final String exception) {
+        return this.meterRegistry.get(name).tag("exception", exception).counter().count();
+    }
+
+}
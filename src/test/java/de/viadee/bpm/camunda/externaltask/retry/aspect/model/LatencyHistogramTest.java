@@ -0,0 +1,102 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyTest() {
+        final LatencyHistogram histogram = new LatencyHistogram(1_000_000L);
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(99.0));
+        assertEquals(0.0, histogram.getMean());
+    }
+
+
+    @Test
+    public void exactBelowSubBucketCountTest() {
+        final LatencyHistogram histogram = new LatencyHistogram(1_000_000L);
+        histogram.record(5L);
+        histogram.record(5L);
+        histogram.record(40L);
+
+        assertEquals(5L, histogram.getValueAtPercentile(50.0));
+        assertEquals(40L, histogram.getValueAtPercentile(100.0));
+        assertEquals(40L, histogram.getMaximum());
+    }
+
+
+    @Test
+    public void percentilesWithinPrecisionTest() {
+        final LatencyHistogram histogram = new LatencyHistogram(3_600_000_000L);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(500_500.0, histogram.getMean());
+        assertWithinPrecision(500_000L, histogram.getValueAtPercentile(50.0));
+        assertWithinPrecision(990_000L, histogram.getValueAtPercentile(99.0));
+        assertEquals(1_000_000L, histogram.getValueAtPercentile(100.0));
+    }
+
+
+    @Test
+    public void bucketsAreContiguousTest() {
+        for (long value = 0; value < 100_000L; value++) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestEquivalentValue(index - 1) < value);
+        }
+    }
+
+
+    @Test
+    public void aboveHighestTrackableValueTest() {
+        final LatencyHistogram histogram = new LatencyHistogram(1000L);
+        histogram.record(5000L);
+        assertEquals(5000L, histogram.getMaximum());
+        assertTrue(histogram.getValueAtPercentile(100.0) < 1100L);
+    }
+
+
+    private static void assertWithinPrecision(final long expected, final long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "expected ~" + expected + " but was " + actual);
+    }
+
+}
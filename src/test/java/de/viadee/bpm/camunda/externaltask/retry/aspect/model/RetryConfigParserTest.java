@@ -0,0 +1,205 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class RetryConfigParserTest {
+
+    private static final long FALLBACK_INTERVAL = 5 * 60 * 1000L;
+
+    private static final String[] TOKENS = {
+            "R", "r", "P", "p", "T", "t", "D", "d", "H", "h", "M", "m", "S", "s", "Y", "y",
+            "/", ",", " ", "\t", "!", "0", "1", "5", "10", "007", "3000000000",
+            "922337203685477580", "9223372036854775807", "99999999999999999999", "\u017F"
+    };
+
+    private String retryProperty;
+
+
+    @Test
+    public void sameBehaviourAsRegularExpressionsTest() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.setDefaultBehavior("R4/PT37M"); // distinguishable from fallback
+        final RetryConfigValues valueVault = new RetryConfigValues(properties);
+        final PropertyService propertyService = new PropertyService(properties);
+
+        final ExternalTask externalTask = mock(ExternalTask.class);
+        when(externalTask.getExtensionProperty(anyString())).thenAnswer(invocation -> this.retryProperty);
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            this.retryProperty = this.generateRetryProperty(random);
+
+            final RetryBehaviour legacy = new RetryBehaviour(externalTask, valueVault);
+            final int legacyRetries;
+            try {
+                legacyRetries = legacy.determineRetriesFromConfig();
+            } catch (final NumberFormatException exception) {
+                continue; // number of retries exceeds int, see numberOfRetriesOverflowTest
+            }
+            final RetrySchedule retrySchedule = propertyService.retrySchedule(this.retryProperty);
+
+            assertEquals(legacyRetries, retrySchedule.getRetries(), this.retryProperty);
+            for (int remaining = 0; remaining <= Math.min(legacyRetries + 1, 30); remaining++) {
+                assertEquals(legacy.nextRetryInterval(remaining), retrySchedule.nextRetryInterval(remaining), this.retryProperty);
+            }
+        }
+    }
+
+
+    @Test
+    public void numberOfRetriesOverflowTest() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        final ExternalTask externalTask = mock(ExternalTask.class);
+        when(externalTask.getExtensionProperty(anyString())).thenReturn("R3000000000/PT1M");
+
+        // regular expressions failed with an exception, the parser uses the default
+        assertThrows(NumberFormatException.class,
+                () -> new RetryBehaviour(externalTask, new RetryConfigValues(properties)).determineRetriesFromConfig());
+        assertNull(RetryConfigParser.parse("R3000000000/PT1M", FALLBACK_INTERVAL));
+        assertEquals(3, new PropertyService(properties).retrySchedule("R3000000000/PT1M").getRetries());
+    }
+
+
+    @Test
+    public void validConfigsTest() {
+        assertArrayEquals(new long[]{300_000L}, RetryConfigParser.parse("R3/PT5M", FALLBACK_INTERVAL).getIntervals());
+        assertArrayEquals(new long[]{10_000L, 90_061_000L}, RetryConfigParser.parse(" pt10s , P1dT1h1M1s", FALLBACK_INTERVAL).getIntervals());
+        assertArrayEquals(new long[]{FALLBACK_INTERVAL}, RetryConfigParser.parse("R1/P1Y", FALLBACK_INTERVAL).getIntervals());
+        assertArrayEquals(new long[]{FALLBACK_INTERVAL, 60_000L}, RetryConfigParser.parse("P1DT,PT1M", FALLBACK_INTERVAL).getIntervals());
+    }
+
+
+    @Test
+    public void backoffConfigsTest() {
+        assertArrayEquals(new long[]{1_000L, 2_000L, 4_000L, 5_000L}, RetryConfigParser.parse("R6/PT1S*2/PT5S", FALLBACK_INTERVAL).getIntervals());
+        assertArrayEquals(new long[]{60_000L, 90_000L}, RetryConfigParser.parse("r2/pt1m * 1.5 / pt1h", FALLBACK_INTERVAL).getIntervals());
+        assertNull(RetryConfigParser.parse("R3/PT1M*0.5/PT5M", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("R3/PT1M*2", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("R3/PT1M*2/", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("PT1M*2/PT5M", FALLBACK_INTERVAL));
+    }
+
+
+    @Test
+    public void slowBackoffReachesMaximumTest() {
+        // 1.001 ^ 1023 is below 3, more steps than pre-computed are needed to reach the maximum
+        final RetrySchedule retrySchedule = RetryConfigParser.parse("R3000/PT1S*1.001/PT10S", FALLBACK_INTERVAL);
+
+        assertEquals(1_000L, retrySchedule.nextRetryInterval(3000));
+        assertEquals(Math.round(1_000L * Math.pow(1.001, 1500)), retrySchedule.nextRetryInterval(1500), 1L);
+        assertEquals(10_000L, retrySchedule.nextRetryInterval(1));
+    }
+
+
+    @Test
+    public void invalidConfigsTest() {
+        assertNull(RetryConfigParser.parse("R3/PT3D", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("PT10M,", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("PT1M,P1Y", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("R3/PT", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("invld!", FALLBACK_INTERVAL));
+    }
+
+
+    private String generateRetryProperty(final Random random) {
+        if (random.nextInt(5) == 0) {
+            // random token soup
+            final StringBuilder retryProperty = new StringBuilder();
+            for (int i = random.nextInt(10); i >= 0; i--) {
+                retryProperty.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            return retryProperty.toString();
+        }
+
+        final StringBuilder retryProperty = new StringBuilder();
+        if (random.nextBoolean()) {
+            retryProperty.append(random.nextBoolean() ? "R" : "r").append(this.number(random)).append('/').append(this.duration(random, true));
+        } else {
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                retryProperty.append(this.duration(random, false)).append(i > 0 ? "," : "");
+            }
+        }
+
+        // mutate: insert spaces or tokens, drop characters
+        for (int i = random.nextInt(3); i > 0; i--) {
+            final int position = random.nextInt(retryProperty.length() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> retryProperty.insert(position, ' ');
+                case 1 -> retryProperty.insert(position, TOKENS[random.nextInt(TOKENS.length)]);
+                default -> {
+                    if (position < retryProperty.length()) retryProperty.deleteCharAt(position);
+                }
+            }
+        }
+        return retryProperty.toString();
+    }
+
+    private String duration(final Random random, final boolean yearsAndMonths) {
+        final StringBuilder duration = new StringBuilder("P");
+        if (yearsAndMonths && random.nextInt(6) == 0) duration.append(this.number(random)).append('Y');
+        if (yearsAndMonths && random.nextInt(6) == 0) duration.append(this.number(random)).append('M');
+        if (random.nextInt(3) == 0) duration.append(this.number(random)).append('D');
+        if (random.nextInt(4) != 0) {
+            duration.append('T');
+            if (random.nextInt(3) == 0) duration.append(this.number(random)).append('H');
+            if (random.nextInt(2) == 0) duration.append(this.number(random)).append('M');
+            if (random.nextInt(3) == 0) duration.append(this.number(random)).append('S');
+        }
+        return duration.toString();
+    }
+
+    private String number(final Random random) {
+        return switch (random.nextInt(20)) {
+            case 0 -> "99999999999999999999";
+            case 1 -> "106751991167300";
+            case 2 -> "0";
+            default -> String.valueOf(random.nextInt(100));
+        };
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class RetryJitterTest {
+
+    private static final long FALLBACK_INTERVAL = 5 * 60 * 1000L;
+    private static final long MINUTE = 60 * 1000L;
+
+    private final RetrySchedule retrySchedule = new RetrySchedule(3, new long[]{MINUTE, 10 * MINUTE});
+
+
+    @Test
+    public void noJitterTest() {
+        assertEquals(10 * MINUTE, new RetryJitter(JitterType.NONE, 1.0).apply(this.retrySchedule, 10 * MINUTE));
+    }
+
+    @Test
+    public void noRetryNoJitterTest() {
+        assertEquals(0L, new RetryJitter(JitterType.FULL, 1.0).apply(this.retrySchedule, 0L));
+    }
+
+    @Test
+    public void fullJitterTest() {
+        this.assertWithin(new RetryJitter(JitterType.FULL, 0.5), this.retrySchedule, 5 * MINUTE, 10 * MINUTE);
+    }
+
+    @Test
+    public void equalJitterTest() {
+        this.assertWithin(new RetryJitter(JitterType.EQUAL, 1.0), this.retrySchedule, 5 * MINUTE, 10 * MINUTE);
+    }
+
+    @Test
+    public void decorrelatedJitterTest() {
+        this.assertWithin(new RetryJitter(JitterType.DECORRELATED, 1.0), this.retrySchedule, MINUTE, 20 * MINUTE);
+    }
+
+    @Test
+    public void retryConfigJitterTest() {
+        final RetrySchedule withJitter = RetryConfigParser.parse("R3/PT10M~20%", FALLBACK_INTERVAL);
+        assertNotNull(withJitter);
+        assertEquals(20, withJitter.getJitterPercent());
+
+        // jitter in retry-config wins over the configured type
+        this.assertWithin(new RetryJitter(JitterType.NONE, 1.0), withJitter, 8 * MINUTE, 12 * MINUTE);
+    }
+
+    @Test
+    public void retryConfigJitterSyntaxTest() {
+        assertNotNull(RetryConfigParser.parse("PT1M,PT5M ~ 5 %", FALLBACK_INTERVAL));
+        assertNotNull(RetryConfigParser.parse("R10/PT1S*2/PT10M~50%", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("R3/PT10M~20", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("R3/PT10M~101%", FALLBACK_INTERVAL));
+        assertNull(RetryConfigParser.parse("R3/PT10M~20%,PT1M", FALLBACK_INTERVAL));
+    }
+
+
+    private void assertWithin(final RetryJitter retryJitter, final RetrySchedule retrySchedule, final long lower, final long upper) {
+        boolean randomized = false;
+        for (int i = 0; i < 1_000; i++) {
+            final long interval = retryJitter.apply(retrySchedule, 10 * MINUTE);
+            assertTrue(interval >= lower && interval <= upper, interval + " not within " + lower + " and " + upper);
+            randomized |= interval != 10 * MINUTE;
+        }
+        assertTrue(randomized);
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class CircuitBreakerServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private ExternalTaskRetryAspectProperties.CircuitBreaker properties;
+    private CircuitBreakerService circuitBreakerService;
+
+
+    @BeforeEach
+    public void initCircuitBreakerService() {
+        this.properties = new ExternalTaskRetryAspectProperties.CircuitBreaker();
+        this.properties.setEnabled(true);
+        this.properties.setFailureThreshold(3);
+        this.properties.setOpenDuration(Duration.ofSeconds(30));
+        this.circuitBreakerService = new CircuitBreakerService(this.properties, this.now::get);
+    }
+
+
+    @Test
+    public void opensAfterThresholdTest() {
+        this.fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreakerService.getState(Object.class));
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+
+        this.fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, this.circuitBreakerService.getState(Object.class));
+        assertTrue(this.circuitBreakerService.isOpen(Object.class));
+        assertFalse(this.circuitBreakerService.isCallPermitted(Object.class));
+        assertEquals(30_000L, this.circuitBreakerService.getOpenInterval());
+    }
+
+
+    @Test
+    public void successResetsConsecutiveFailuresTest() {
+        this.fail(2);
+        this.circuitBreakerService.recordSuccess(Object.class);
+        this.fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreakerService.getState(Object.class));
+    }
+
+
+    @Test
+    public void successfulProbeClosesTest() {
+        this.fail(3);
+        this.now.addAndGet(30_000L);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, this.circuitBreakerService.getState(Object.class));
+
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));  // probe
+        assertFalse(this.circuitBreakerService.isCallPermitted(Object.class)); // only one probe at a time
+
+        this.circuitBreakerService.recordSuccess(Object.class);
+        assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreakerService.getState(Object.class));
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+    }
+
+
+    @Test
+    public void failedProbeReopensTest() {
+        this.fail(3);
+        this.now.addAndGet(30_000L);
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+
+        this.fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, this.circuitBreakerService.getState(Object.class));
+        this.now.addAndGet(29_999L);
+        assertFalse(this.circuitBreakerService.isCallPermitted(Object.class));
+        this.now.addAndGet(1L);
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+    }
+
+
+    @Test
+    public void releasedProbeTest() {
+        this.fail(3);
+        this.now.addAndGet(30_000L);
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+
+        // probe ends in an instant incident, the next probe is admitted
+        this.circuitBreakerService.releaseProbe(Object.class);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, this.circuitBreakerService.getState(Object.class));
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+        assertFalse(this.circuitBreakerService.isCallPermitted(Object.class));
+
+        this.circuitBreakerService.recordSuccess(Object.class);
+        assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreakerService.getState(Object.class));
+    }
+
+
+    @Test
+    public void circuitPerHandlerTest() {
+        this.fail(3);
+        assertFalse(this.circuitBreakerService.isCallPermitted(Object.class));
+        assertTrue(this.circuitBreakerService.isCallPermitted(String.class));
+    }
+
+
+    @Test
+    public void disabledTest() {
+        this.properties.setEnabled(false);
+        this.fail(10);
+        assertTrue(this.circuitBreakerService.isCallPermitted(Object.class));
+        assertFalse(this.circuitBreakerService.isOpen(Object.class));
+    }
+
+
+    private void fail(final int times) {
+        for (int i = 0; i < times; i++) {
+            this.circuitBreakerService.recordFailure(Object.class);
+        }
+    }
+
+}
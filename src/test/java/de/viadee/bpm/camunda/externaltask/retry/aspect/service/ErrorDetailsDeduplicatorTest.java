@@ -0,0 +1,161 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ErrorDetailsDeduplicatorTest {
+
+    private static final String FULL_DETAILS = "full-details";
+    private static final RetryDecision RETRY = new RetryDecision(2, 1000L);
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private ExternalTaskRetryAspectProperties.ErrorDetails.Deduplication properties;
+    private ErrorDetailsDeduplicator errorDetailsDeduplicator;
+
+
+    @BeforeEach
+    public void initErrorDetailsDeduplicator() {
+        when(this.externalTask.getId()).thenReturn("task-1");
+        this.properties = new ExternalTaskRetryAspectProperties.ErrorDetails.Deduplication();
+        this.properties.setEnabled(true);
+        this.errorDetailsDeduplicator = new ErrorDetailsDeduplicator(this.properties);
+    }
+
+
+    @Test
+    public void sameErrorReferencedTest() {
+        assertEquals(FULL_DETAILS, this.details(error("first"), RETRY));
+
+        final String reference = this.details(error("second"), RETRY);
+        assertTrue(reference.startsWith("Same error as the previous failure"));
+    }
+
+
+    @Test
+    public void changedErrorSentInFullTest() {
+        this.details(error("first"), RETRY);
+
+        assertEquals(FULL_DETAILS, this.details(new IllegalStateException("other"), RETRY));
+        assertEquals(FULL_DETAILS, this.details(new RuntimeException("with cause", new IllegalStateException()), RETRY));
+    }
+
+
+    @Test
+    public void incidentSentInFullTest() {
+        this.details(error("first"), RETRY);
+
+        assertEquals(FULL_DETAILS, this.details(error("last"), RetryDecision.INSTANT_INCIDENT));
+        assertEquals(0, this.errorDetailsDeduplicator.size());
+    }
+
+
+    @Test
+    public void perTaskTest() {
+        this.details(error("first"), RETRY);
+        when(this.externalTask.getId()).thenReturn("task-2");
+
+        assertEquals(FULL_DETAILS, this.details(error("first"), RETRY));
+    }
+
+
+    @Test
+    public void omitPolicyTest() {
+        this.properties.setPolicy(ErrorDetailsDeduplicator.Policy.OMIT);
+        this.details(error("first"), RETRY);
+
+        assertNull(this.details(error("second"), RETRY));
+    }
+
+
+    @Test
+    public void policyByExceptionTest() {
+        this.properties.setPolicyByException(Map.of(RuntimeException.class.getName(), ErrorDetailsDeduplicator.Policy.FULL));
+        final IllegalArgumentException error = new IllegalArgumentException();
+
+        this.details(error, RETRY);
+        assertEquals(FULL_DETAILS, this.details(error, RETRY)); // inherited from RuntimeException
+    }
+
+
+    @Test
+    public void disabledTest() {
+        this.properties.setEnabled(false);
+        this.details(error("first"), RETRY);
+
+        assertEquals(FULL_DETAILS, this.details(error("second"), RETRY));
+    }
+
+
+    @Test
+    public void boundedTest() {
+        this.properties.setCacheSize(10);
+        for (int i = 0; i < 100; i++) {
+            when(this.externalTask.getId()).thenReturn("task-" + i);
+            this.details(error("first"), RETRY);
+        }
+        assertTrue(this.errorDetailsDeduplicator.size() <= 10);
+    }
+
+
+    @Test
+    public void fingerprintIgnoresMessageTest() {
+        assertEquals(this.errorDetailsDeduplicator.fingerprint(error("id 1")), this.errorDetailsDeduplicator.fingerprint(error("id 2")));
+        assertNotEquals(this.errorDetailsDeduplicator.fingerprint(error("id 1")), this.errorDetailsDeduplicator.fingerprint(new IllegalStateException("id 1")));
+    }
+
+
+    private String details(final Throwable throwable, final RetryDecision retryDecision) {
+        return this.errorDetailsDeduplicator.details(this.externalTask, throwable, retryDecision, () -> FULL_DETAILS);
+    }
+
+    private static RuntimeException error(final String message) {
+        final RuntimeException error = new RuntimeException(message);
+        error.setStackTrace(new StackTraceElement[]{new StackTraceElement("com.example.Handler", "execute", "Handler.java", 42)});
+        return error;
+    }
+
+}
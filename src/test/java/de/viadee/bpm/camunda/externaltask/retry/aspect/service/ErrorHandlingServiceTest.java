@@ -0,0 +1,123 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.ExceptionClassification;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+
+public class ErrorHandlingServiceTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private final BusinessErrorService businessErrorService = mock(BusinessErrorService.class);
+    private final FailureService failureService = mock(FailureService.class);
+    private final ExceptionClassifier exceptionClassifier = mock(ExceptionClassifier.class);
+    private ErrorHandlingService errorHandlingService;
+
+
+    @BeforeEach
+    public void initErrorHandlingService() {
+        when(this.failureService.getExceptionClassifier()).thenReturn(this.exceptionClassifier);
+        this.errorHandlingService = new ErrorHandlingService(this.businessErrorService, this.failureService);
+    }
+
+
+    @Test
+    public void classificationPassedToFailureServiceTest() {
+        final IOException exception = new IOException("failure");
+        final ExceptionClassification classification = ExceptionClassification.instantIncident();
+        when(this.exceptionClassifier.takeHeld(exception)).thenReturn(classification);
+        when(this.failureService.handleFailure(Object.class, this.externalTask, this.externalTaskService, exception, classification))
+                .thenReturn(RetryDecision.INSTANT_INCIDENT);
+
+        this.errorHandlingService.handleError(Object.class, exception, this.externalTask, this.externalTaskService);
+
+        verify(this.exceptionClassifier, times(1)).takeHeld(exception);
+        verify(this.exceptionClassifier, never()).classify(any());
+        verify(this.failureService).handleFailure(Object.class, this.externalTask, this.externalTaskService, exception, classification);
+        verifyNoInteractions(this.businessErrorService);
+    }
+
+
+    @Test
+    public void classifiedBusinessErrorTest() {
+        final IOException exception = new IOException("not found");
+        when(this.exceptionClassifier.takeHeld(exception)).thenReturn(ExceptionClassification.businessError("code"));
+
+        this.errorHandlingService.handleError(Object.class, exception, this.externalTask, this.externalTaskService);
+
+        final ArgumentCaptor<ExternalTaskBusinessError> businessError = ArgumentCaptor.forClass(ExternalTaskBusinessError.class);
+        verify(this.businessErrorService).handleError(any(), any(), any(), businessError.capture());
+        assertEquals("code", businessError.getValue().getErrorCode());
+        assertEquals("not found", businessError.getValue().getErrorMessage());
+    }
+
+
+    @Test
+    public void ownTypesKeepPrecedenceTest() {
+        when(this.failureService.getExceptionClassifier()).thenReturn(
+                new ExceptionClassifier(Map.of("RuntimeException", ExceptionClassification.businessError("mapped")), true, 5));
+        final ErrorHandlingService errorHandlingService = new ErrorHandlingService(this.businessErrorService, this.failureService);
+        final InstantIncidentException instantIncident = new InstantIncidentException();
+        final ExternalTaskBusinessError businessError = new ExternalTaskBusinessError("code");
+        when(this.failureService.handleFailure(Object.class, this.externalTask, this.externalTaskService,
+                instantIncident, ExceptionClassification.instantIncident())).thenReturn(RetryDecision.INSTANT_INCIDENT);
+
+        errorHandlingService.handleError(Object.class, instantIncident, this.externalTask, this.externalTaskService);
+        errorHandlingService.handleError(Object.class, businessError, this.externalTask, this.externalTaskService);
+
+        verify(this.failureService).handleFailure(Object.class, this.externalTask, this.externalTaskService,
+                instantIncident, ExceptionClassification.instantIncident());
+        verify(this.businessErrorService).handleError(Object.class, this.externalTask, this.externalTaskService, businessError);
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.InstantIncidentException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.ExceptionClassification;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ExceptionClassifierTest {
+
+    @Test
+    public void parseTest() {
+        assertSame(ExceptionClassification.instantIncident(), ExceptionClassifier.parse(" instant_incident ", 0L));
+
+        final ExceptionClassification businessError = ExceptionClassifier.parse("bpmn_error: code ", 0L);
+        assertEquals(ExceptionClassification.Outcome.BUSINESS_ERROR, businessError.getOutcome());
+        assertEquals("code", businessError.getErrorCode());
+
+        final ExceptionClassification retry = ExceptionClassifier.parse("R2/PT1M", 0L);
+        assertEquals(ExceptionClassification.Outcome.RETRY, retry.getOutcome());
+        assertEquals(2, retry.getRetrySchedule().getRetries());
+        assertEquals(60_000L, retry.getRetrySchedule().nextRetryInterval(2));
+
+        assertNull(ExceptionClassifier.parse("BPMN_ERROR:", 0L));
+        assertNull(ExceptionClassifier.parse("invld!", 0L));
+        assertNull(ExceptionClassifier.parse(" ", 0L));
+        assertFalse(ExceptionClassifier.isValid(null));
+    }
+
+
+    @Test
+    public void propertiesTest() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.getClassification().setBehaviorByExceptionType(Map.of(
+                "java.io.IOException", "R2/PT1M",
+                "IllegalStateException", "invld!"));
+
+        final ExceptionClassifier exceptionClassifier = new ExceptionClassifier(properties);
+
+        assertEquals(2, exceptionClassifier.classify(new IOException()).getRetrySchedule().getRetries());
+        // invalid behaviors are ignored
+        assertSame(ExceptionClassification.DEFAULT, exceptionClassifier.classify(new IllegalStateException()));
+    }
+
+
+    @Test
+    public void hierarchyTest() {
+        final ExceptionClassifier exceptionClassifier = new ExceptionClassifier(Map.of(
+                "RuntimeException", ExceptionClassification.instantIncident(),
+                IllegalArgumentException.class.getName(), ExceptionClassification.businessError("code")), true, 10);
+
+        // most specific type wins, on every lookup
+        for (int i = 0; i < 3; i++) {
+            assertEquals("code", exceptionClassifier.classify(new NumberFormatException()).getErrorCode());
+            assertSame(ExceptionClassification.instantIncident(), exceptionClassifier.classify(new IllegalStateException()));
+            assertSame(ExceptionClassification.DEFAULT, exceptionClassifier.classify(new Exception()));
+        }
+    }
+
+
+    @Test
+    public void causesTest() {
+        final ExceptionClassification classification = ExceptionClassification.businessError("io");
+        final Exception wrapped = new IllegalStateException(new RuntimeException(new IOException()));
+
+        assertSame(classification, new ExceptionClassifier(Map.of("IOException", classification), true, 10).classify(wrapped));
+        assertSame(ExceptionClassification.DEFAULT, new ExceptionClassifier(Map.of("IOException", classification), true, 1).classify(wrapped));
+        assertSame(ExceptionClassification.DEFAULT, new ExceptionClassifier(Map.of("IOException", classification), false, 10).classify(wrapped));
+
+        // outermost classified exception wins
+        final ExceptionClassifier exceptionClassifier = new ExceptionClassifier(Map.of(
+                "IOException", classification,
+                "UncheckedIOException", ExceptionClassification.instantIncident()), true, 10);
+        assertSame(ExceptionClassification.instantIncident(), exceptionClassifier.classify(new UncheckedIOException(new IOException())));
+    }
+
+
+    @Test
+    public void thrownTest() {
+        final ExceptionClassifier exceptionClassifier = new ExceptionClassifier(Map.of(
+                "RuntimeException", ExceptionClassification.businessError("mapped")), true, 10);
+
+        assertSame(ExceptionClassification.instantIncident(), exceptionClassifier.classifyThrown(new InstantIncidentException()));
+        assertSame(ExceptionClassification.businessError(), exceptionClassifier.classifyThrown(new ExternalTaskBusinessError("code")));
+        assertEquals("mapped", exceptionClassifier.classifyThrown(new IllegalStateException()).getErrorCode());
+    }
+
+
+    @Test
+    public void heldTest() {
+        final ExceptionClassification classification = ExceptionClassification.businessError("io");
+        final ExceptionClassifier exceptionClassifier = new ExceptionClassifier(Map.of("IOException", classification), true, 10);
+        final IOException exception = new IOException();
+
+        assertSame(classification, exceptionClassifier.classifyAndHold(exception));
+        assertSame(classification, exceptionClassifier.takeHeld(exception));
+
+        // held for this very exception only, once
+        exceptionClassifier.classifyAndHold(exception);
+        assertSame(ExceptionClassification.DEFAULT, exceptionClassifier.takeHeld(new IllegalStateException()));
+        assertSame(classification, exceptionClassifier.takeHeld(exception));
+    }
+
+
+    @Test
+    public void noneTest() {
+        assertTrue(ExceptionClassifier.NONE.isEmpty());
+        assertSame(ExceptionClassification.DEFAULT, ExceptionClassifier.NONE.classify(new IOException()));
+        assertSame(ExceptionClassification.DEFAULT, ExceptionClassifier.NONE.classify(null));
+    }
+
+}
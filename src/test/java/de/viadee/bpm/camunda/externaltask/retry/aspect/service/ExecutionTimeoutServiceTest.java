@@ -0,0 +1,209 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExecutionTimeoutException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class ExecutionTimeoutServiceTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private ExternalTaskRetryAspectProperties.Timeout properties;
+    private ExecutionTimeoutService executionTimeoutService;
+
+
+    @BeforeEach
+    public void initExecutionTimeoutService() {
+        when(this.externalTask.getTopicName()).thenReturn("topic");
+
+        this.properties = new ExternalTaskRetryAspectProperties.Timeout();
+        this.properties.setEnabled(true);
+        this.properties.setDefaultTimeout(Duration.ofMillis(100));
+        this.executionTimeoutService = new ExecutionTimeoutService(this.properties);
+    }
+
+    @AfterEach
+    public void closeExecutionTimeoutService() {
+        this.executionTimeoutService.close();
+    }
+
+
+    @Test
+    public void timeoutPrecedenceTest() {
+        this.properties.setTimeoutByTopic(Map.of("topic", Duration.ofSeconds(2)));
+        this.properties.setTimeoutByHandler(Map.of("String", Duration.ofSeconds(3)));
+
+        assertEquals(Duration.ofSeconds(3), this.executionTimeoutService.timeout(String.class, this.externalTask));
+        assertEquals(Duration.ofSeconds(2), this.executionTimeoutService.timeout(Object.class, this.externalTask));
+
+        when(this.externalTask.getTopicName()).thenReturn("other");
+        assertEquals(Duration.ofMillis(100), this.executionTimeoutService.timeout(Object.class, this.externalTask));
+
+        this.properties.setDefaultTimeout(Duration.ZERO);
+        assertNull(this.executionTimeoutService.timeout(Object.class, this.externalTask));
+    }
+
+
+    @Test
+    public void withinTimeoutTest() throws Throwable {
+        assertEquals("result", this.executionTimeoutService.execute(Object.class, this.externalTask, this.externalTaskService, service -> "result"));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+
+    @Test
+    public void interruptTest() {
+        final ExecutionTimeoutException timeout = assertThrows(ExecutionTimeoutException.class,
+                () -> this.executionTimeoutService.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+                    Thread.sleep(10_000L);
+                    return null;
+                }));
+
+        assertEquals(Duration.ofMillis(100), timeout.getTimeout());
+        assertInstanceOf(InterruptedException.class, timeout.getCause());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+
+    @Test
+    public void failureWithinTimeoutTest() {
+        assertThrows(IllegalStateException.class, () -> this.executionTimeoutService.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+            throw new IllegalStateException("failure");
+        }));
+        assertThrows(ExternalTaskBusinessError.class, () -> this.executionTimeoutService.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+            throw new ExternalTaskBusinessError("code");
+        }));
+    }
+
+
+    @Test
+    public void abandonTest() throws Throwable {
+        this.properties.setMode(ExecutionTimeoutService.Mode.ABANDON);
+        final ExecutionTimeoutService abandoning = new ExecutionTimeoutService(this.properties);
+        final CountDownLatch neverReleased = new CountDownLatch(1);
+        try {
+            final ExecutionTimeoutException timeout = assertThrows(ExecutionTimeoutException.class,
+                    () -> abandoning.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+                        neverReleased.await();
+                        return null;
+                    }));
+            assertNull(timeout.getCause());
+
+            assertThrows(IllegalStateException.class, () -> abandoning.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+                throw new IllegalStateException("failure");
+            }));
+            assertEquals("result", abandoning.execute(Object.class, this.externalTask, this.externalTaskService, service -> "result"));
+
+        } finally {
+            abandoning.close();
+        }
+    }
+
+
+    @Test
+    public void abandonedServiceTest() throws Throwable {
+        this.properties.setMode(ExecutionTimeoutService.Mode.ABANDON);
+        final ExecutionTimeoutService abandoning = new ExecutionTimeoutService(this.properties);
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final CompletableFuture<Throwable> lateCompletion = new CompletableFuture<>();
+        try {
+            assertThrows(ExecutionTimeoutException.class, () -> abandoning.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+                assertNotSame(this.externalTaskService, service);
+                try {
+                    timedOut.await();
+                } catch (final InterruptedException ignored) {
+                    // interrupted on timeout, the handler keeps running though
+                }
+                try {
+                    service.complete(this.externalTask);
+                    lateCompletion.complete(null);
+                } catch (final IllegalStateException rejected) {
+                    lateCompletion.complete(rejected);
+                }
+                return null;
+            }));
+            timedOut.countDown();
+
+            assertInstanceOf(IllegalStateException.class, lateCompletion.get(1, TimeUnit.SECONDS));
+            verify(this.externalTaskService, never()).complete(any(ExternalTask.class));
+
+        } finally {
+            abandoning.close();
+        }
+    }
+
+
+    @Test
+    public void reportedBeforeTimeoutTest() throws Throwable {
+        this.properties.setMode(ExecutionTimeoutService.Mode.ABANDON);
+        final ExecutionTimeoutService abandoning = new ExecutionTimeoutService(this.properties);
+        final CountDownLatch neverReleased = new CountDownLatch(1);
+        try {
+            assertNull(abandoning.execute(Object.class, this.externalTask, this.externalTaskService, service -> {
+                service.complete(this.externalTask);
+                neverReleased.await();
+                return "result";
+            }));
+            verify(this.externalTaskService).complete(this.externalTask);
+
+        } finally {
+            abandoning.close();
+        }
+    }
+
+}
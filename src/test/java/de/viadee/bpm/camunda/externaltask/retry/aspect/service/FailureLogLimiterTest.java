@@ -0,0 +1,149 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+public class FailureLogLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private ExternalTaskRetryAspectProperties.LogLimit properties;
+    private FailureLogLimiter failureLogLimiter;
+
+
+    @BeforeEach
+    public void initFailureLogLimiter() {
+        this.properties = new ExternalTaskRetryAspectProperties.LogLimit();
+        this.properties.setEnabled(true);
+        this.properties.setPermits(2);
+        this.properties.setWindow(Duration.ofSeconds(10));
+        this.properties.setSampleRate(3);
+        this.failureLogLimiter = new FailureLogLimiter(this.properties, this.now::get, null);
+    }
+
+
+    @Test
+    public void disabledLogsAllInFullTest() {
+        this.properties.setEnabled(false);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        }
+    }
+
+
+    @Test
+    public void samplesBeyondPermitsTest() {
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        assertEquals(FailureLogLimiter.Verdict.SUPPRESSED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        assertEquals(FailureLogLimiter.Verdict.SUPPRESSED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        assertEquals(FailureLogLimiter.Verdict.SAMPLED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+    }
+
+
+    @Test
+    public void countOnlyTest() {
+        this.properties.setSampleRate(0);
+        this.failureLogLimiter.acquire(Object.class, RuntimeException.class);
+        this.failureLogLimiter.acquire(Object.class, RuntimeException.class);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FailureLogLimiter.Verdict.SUPPRESSED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        }
+    }
+
+
+    @Test
+    public void limitsPerOriginAndExceptionTypeTest() {
+        this.failureLogLimiter.acquire(Object.class, RuntimeException.class);
+        this.failureLogLimiter.acquire(Object.class, RuntimeException.class);
+        assertEquals(FailureLogLimiter.Verdict.SUPPRESSED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, IllegalStateException.class));
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(String.class, RuntimeException.class));
+    }
+
+
+    @Test
+    public void permitsRefillOverTimeTest() {
+        this.failureLogLimiter.acquire(Object.class, RuntimeException.class);
+        this.failureLogLimiter.acquire(Object.class, RuntimeException.class);
+        assertEquals(FailureLogLimiter.Verdict.SUPPRESSED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+
+        // one permit per 5s
+        this.now.addAndGet(5_000L);
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        assertEquals(FailureLogLimiter.Verdict.SUPPRESSED, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+
+        this.now.addAndGet(10_000L);
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+        assertEquals(FailureLogLimiter.Verdict.FULL, this.failureLogLimiter.acquire(Object.class, RuntimeException.class));
+    }
+
+
+    @Test
+    public void summaryCountsSuppressedApartFromSampledTest() {
+        final Logger logger = (Logger) LoggerFactory.getLogger(FailureLogLimiterTest.class);
+        final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.WARN);
+        try {
+            for (int i = 0; i < 2 + 7; i++) {
+                this.failureLogLimiter.acquire(FailureLogLimiterTest.class, RuntimeException.class);
+            }
+            this.failureLogLimiter.logSummary();
+            this.failureLogLimiter.logSummary(); // nothing limited since
+
+            assertEquals(List.of("Suppressed 5 and sampled 2 similar failure(s) of type RuntimeException within PT10S"),
+                    appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList());
+
+        } finally {
+            logger.setLevel(null);
+            logger.detachAppender(appender);
+        }
+    }
+
+}
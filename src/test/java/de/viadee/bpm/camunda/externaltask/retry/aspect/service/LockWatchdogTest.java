@@ -0,0 +1,146 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class LockWatchdogTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private ExternalTaskRetryAspectProperties.LockWatchdog properties;
+    private LockWatchdog lockWatchdog;
+
+
+    @BeforeEach
+    public void initLockWatchdog() {
+        when(this.externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + 100L));
+
+        this.properties = new ExternalTaskRetryAspectProperties.LockWatchdog();
+        this.properties.setEnabled(true);
+        this.properties.setSafetyMargin(Duration.ofMillis(50));
+        this.properties.setExtension(Duration.ofMillis(100));
+        this.properties.setMaximumTotalExtension(Duration.ofMillis(250));
+        this.lockWatchdog = new LockWatchdog(this.properties);
+    }
+
+    @AfterEach
+    public void closeLockWatchdog() {
+        this.lockWatchdog.close();
+    }
+
+
+    @Test
+    public void extendsUpToMaximumTest() {
+        try (LockWatchdog.Watch ignored = this.lockWatchdog.watch(this.externalTask, this.externalTaskService)) {
+            verify(this.externalTaskService, timeout(1000).times(2)).extendLock(this.externalTask, 100L);
+            verify(this.externalTaskService, timeout(1000)).extendLock(this.externalTask, 50L);
+            verify(this.externalTaskService, after(200).times(3)).extendLock(any(ExternalTask.class), anyLong());
+        }
+    }
+
+
+    @Test
+    public void stopsWhenClosedTest() {
+        this.lockWatchdog.watch(this.externalTask, this.externalTaskService).close();
+        verify(this.externalTaskService, after(200).never()).extendLock(any(ExternalTask.class), anyLong());
+    }
+
+
+    @Test
+    public void stopsOnFailedExtensionTest() {
+        doThrow(new IllegalStateException("not found")).when(this.externalTaskService).extendLock(any(ExternalTask.class), anyLong());
+        try (LockWatchdog.Watch ignored = this.lockWatchdog.watch(this.externalTask, this.externalTaskService)) {
+            verify(this.externalTaskService, after(300).times(1)).extendLock(eq(this.externalTask), anyLong());
+        }
+    }
+
+
+    @Test
+    public void unknownLockExpirationTest() {
+        when(this.externalTask.getLockExpirationTime()).thenReturn(null);
+        assertSame(LockWatchdog.Watch.NONE, this.lockWatchdog.watch(this.externalTask, this.externalTaskService));
+    }
+
+
+    @Test
+    public void disabledTest() {
+        this.properties.setEnabled(false);
+        final LockWatchdog disabled = new LockWatchdog(this.properties);
+        assertSame(LockWatchdog.Watch.NONE, disabled.watch(this.externalTask, this.externalTaskService));
+        verify(this.externalTaskService, never()).extendLock(any(ExternalTask.class), anyLong());
+    }
+
+
+    @Test
+    public void safetyMarginNotBelowExtensionTest() {
+        this.properties.setSafetyMargin(Duration.ofMillis(200));
+        when(this.externalTask.getLockExpirationTime()).thenReturn(new Date(1000L));
+        final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        final LockWatchdog adjusted = new LockWatchdog(this.properties, () -> 0L, scheduler);
+
+        adjusted.watch(this.externalTask, this.externalTaskService);
+        final ArgumentCaptor<Runnable> extension = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(extension.capture(), eq(950L), eq(TimeUnit.MILLISECONDS));
+
+        // half of the extension is used as safety-margin, the next extension is not scheduled back-to-back
+        extension.getValue().run();
+        verify(this.externalTaskService).extendLock(this.externalTask, 100L);
+        verify(scheduler).schedule(any(Runnable.class), eq(50L), eq(TimeUnit.MILLISECONDS));
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExecutionTimeoutException;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class PropertyServiceTest {
+
+    private static final long MINUTES_TO_MILLIS = 60 * 1000L;
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private PropertyService propertyService;
+
+
+    @BeforeEach
+    public void initPropertyService() {
+        this.propertyService = new PropertyService(new ExternalTaskRetryAspectProperties());
+        when(this.externalTask.getExtensionProperty("RETRY_CONFIG")).thenReturn("PT1M,PT2M,PT3M");
+    }
+
+
+    @Test
+    public void firstFailureTest() {
+        when(this.externalTask.getRetries()).thenReturn(null);
+
+        final RetryDecision retryDecision = this.propertyService.decide(this.externalTask);
+
+        assertEquals(3, retryDecision.getRemainingRetries());
+        assertEquals(MINUTES_TO_MILLIS, retryDecision.getNextRetryInterval());
+        assertFalse(retryDecision.isIncident());
+    }
+
+
+    @Test
+    public void lastFailureTest() {
+        when(this.externalTask.getRetries()).thenReturn(1);
+
+        final RetryDecision retryDecision = this.propertyService.decide(this.externalTask);
+
+        assertEquals(0, retryDecision.getRemainingRetries());
+        assertEquals(0L, retryDecision.getNextRetryInterval());
+        assertTrue(retryDecision.isIncident());
+    }
+
+
+    @Test
+    public void delegatesMatchDecisionTest() {
+        when(this.externalTask.getRetries()).thenReturn(2);
+
+        final RetryDecision retryDecision = this.propertyService.decide(this.externalTask);
+
+        assertEquals(retryDecision.getRemainingRetries(), this.propertyService.remainingRetries(this.externalTask));
+        assertEquals(retryDecision.getNextRetryInterval(), this.propertyService.nextRetryInterval(this.externalTask));
+        assertEquals(3 * MINUTES_TO_MILLIS, retryDecision.getNextRetryInterval());
+    }
+
+
+
+    @Test
+    public void timeoutRetryBehaviorTest() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.getTimeout().setRetryBehavior("R2/PT10M");
+        final PropertyService timeoutPropertyService = new PropertyService(properties);
+        final ExecutionTimeoutException timeout = new ExecutionTimeoutException(Duration.ofMinutes(1), null);
+
+        when(this.externalTask.getRetries()).thenReturn(null);
+        assertEquals(2, timeoutPropertyService.decide(this.externalTask, timeout).getRemainingRetries());
+        assertEquals(10 * MINUTES_TO_MILLIS, timeoutPropertyService.decide(this.externalTask, timeout).getNextRetryInterval());
+
+        // at most as often as configured for timeouts
+        when(this.externalTask.getRetries()).thenReturn(3);
+        assertEquals(2, timeoutPropertyService.decide(this.externalTask, timeout).getRemainingRetries());
+
+        // any other failure according to the task's retry-behavior
+        assertEquals(2, timeoutPropertyService.decide(this.externalTask, new RuntimeException()).getRemainingRetries());
+        assertEquals(2 * MINUTES_TO_MILLIS, timeoutPropertyService.decide(this.externalTask, new RuntimeException()).getNextRetryInterval());
+    }
+
+
+    @Test
+    public void timeoutWithoutRetryBehaviorTest() {
+        when(this.externalTask.getRetries()).thenReturn(null);
+
+        final RetryDecision retryDecision = this.propertyService.decide(this.externalTask, new ExecutionTimeoutException(Duration.ofMinutes(1), null));
+
+        assertEquals(3, retryDecision.getRemainingRetries());
+        assertEquals(MINUTES_TO_MILLIS, retryDecision.getNextRetryInterval());
+    }
+
+}
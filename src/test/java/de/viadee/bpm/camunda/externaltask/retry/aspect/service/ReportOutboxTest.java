@@ -0,0 +1,355 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.Report;
+import org.camunda.bpm.client.exception.ConnectionLostException;
+import org.camunda.bpm.client.exception.NotFoundException;
+import org.camunda.bpm.client.exception.RestException;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ReportOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final StubExternalTaskService externalTaskService = new StubExternalTaskService();
+    private ExternalTaskRetryAspectProperties.Outbox properties;
+    private ReportOutbox reportOutbox;
+
+
+    @BeforeEach
+    public void initReportOutbox() {
+        this.properties = new ExternalTaskRetryAspectProperties.Outbox();
+        this.properties.setEnabled(true);
+        this.properties.setFile(this.directory.resolve("outbox.dat").toString());
+        this.properties.setReplayInterval(Duration.ofHours(1)); // replayed manually
+        this.reportOutbox = new ReportOutbox(this.properties);
+    }
+
+    @AfterEach
+    public void closeReportOutbox() {
+        this.reportOutbox.close();
+    }
+
+
+    @Test
+    public void engineAvailableTest() {
+        this.reportOutbox.send(this.externalTaskService, failure("1", 60_000L));
+
+        assertEquals(List.of("failure:1"), this.externalTaskService.received);
+        assertEquals(0, this.reportOutbox.getPendingCount());
+    }
+
+
+    @Test
+    public void replayWhenEngineAvailableAgainTest() {
+        this.externalTaskService.unreachable = true;
+        this.reportOutbox.send(this.externalTaskService, failure("1", 60_000L));
+        this.reportOutbox.send(this.externalTaskService, bpmnError("2", 60_000L));
+        assertEquals(2, this.reportOutbox.getPendingCount());
+        assertFalse(this.reportOutbox.replay());
+
+        this.externalTaskService.unreachable = false;
+        assertTrue(this.reportOutbox.replay());
+
+        assertEquals(List.of("failure:1", "bpmnError:2"), this.externalTaskService.received);
+        assertEquals(0, this.reportOutbox.getPendingCount());
+    }
+
+
+    @Test
+    public void survivesRestartTest() {
+        this.externalTaskService.unreachable = true;
+        this.reportOutbox.send(this.externalTaskService, failure("1", 60_000L));
+        this.reportOutbox.send(this.externalTaskService, bpmnError("2", 60_000L));
+        this.reportOutbox.close();
+
+        this.reportOutbox = new ReportOutbox(this.properties);
+        assertEquals(2, this.reportOutbox.getPendingCount());
+        assertFalse(this.reportOutbox.replay()); // no handler executed yet
+
+        this.externalTaskService.unreachable = false;
+        this.reportOutbox.send(this.externalTaskService, failure("3", 60_000L));
+        assertTrue(this.reportOutbox.replay());
+
+        assertEquals(List.of("failure:3", "failure:1", "bpmnError:2"), this.externalTaskService.received);
+        assertEquals(Map.of("variable", "value"), this.externalTaskService.variables);
+    }
+
+
+    @Test
+    public void staleReportDroppedTest() {
+        this.externalTaskService.unreachable = true;
+        this.reportOutbox.send(this.externalTaskService, failure("1", -1L));
+
+        this.externalTaskService.unreachable = false;
+        assertTrue(this.reportOutbox.replay());
+
+        assertTrue(this.externalTaskService.received.isEmpty());
+    }
+
+
+    @Test
+    public void rejectionThrownTest() {
+        this.externalTaskService.rejecting = true;
+
+        assertThrows(NotFoundException.class,
+                () -> this.reportOutbox.send(this.externalTaskService, failure("1", 60_000L)));
+        assertEquals(0, this.reportOutbox.getPendingCount());
+    }
+
+
+    @Test
+    public void compactionTest() {
+        this.reportOutbox.close();
+        this.properties.setCapacity(DataSize.ofKilobytes(4));
+        this.reportOutbox = new ReportOutbox(this.properties);
+
+        for (int i = 0; i <= 1000; i++) {
+            this.externalTaskService.unreachable = true;
+            this.reportOutbox.send(this.externalTaskService, failure(String.valueOf(i), 60_000L));
+            if (i % 2 == 1) {
+                this.externalTaskService.unreachable = false;
+                assertTrue(this.reportOutbox.replay());
+            }
+        }
+        assertEquals(1, this.reportOutbox.getPendingCount());
+        this.reportOutbox.close();
+
+        this.reportOutbox = new ReportOutbox(this.properties);
+        assertEquals(1, this.reportOutbox.getPendingCount());
+        assertFalse(Files.exists(this.directory.resolve("outbox.dat.compact")));
+
+        this.externalTaskService.unreachable = false;
+        this.reportOutbox.send(this.externalTaskService, failure("next", 60_000L));
+        assertTrue(this.reportOutbox.replay());
+        assertEquals(List.of("failure:next", "failure:1000"), this.externalTaskService.received.subList(1000, 1002));
+    }
+
+
+    @Test
+    public void engineAvailableNotKeptTest() throws IOException {
+        this.reportOutbox.send(this.externalTaskService, failure("1", 60_000L));
+        this.reportOutbox.close();
+
+        this.reportOutbox = new ReportOutbox(this.properties);
+        assertEquals(0, this.reportOutbox.getPendingCount());
+    }
+
+
+    @Test
+    public void primitiveVariablesTest() throws IOException {
+        final Map<String, Object> variables = new HashMap<>();
+        variables.put("string", "value");
+        variables.put("boolean", true);
+        variables.put("short", (short) 1);
+        variables.put("integer", 2);
+        variables.put("long", 3L);
+        variables.put("double", 4.5d);
+        variables.put("date", new Date(6L));
+        variables.put("null", null);
+        final Report report = Report.deserialize(Report.bpmnError(task("1", 60_000L), "code", "message", variables).serialize());
+
+        assertEquals(variables, report.getVariables());
+    }
+
+
+    @Test
+    public void nonPrimitiveVariableNotKeptTest() {
+        final Report report = Report.bpmnError(task("1", 60_000L), "code", "message", Map.of("list", new ArrayList<>()));
+        assertThrows(NotSerializableException.class, report::serialize);
+
+        this.externalTaskService.unreachable = true;
+        assertThrows(ConnectionLostException.class, () -> this.reportOutbox.send(this.externalTaskService, report));
+        assertEquals(0, this.reportOutbox.getPendingCount());
+    }
+
+
+    @Test
+    public void serializationTest() throws IOException {
+        final Report report = Report.deserialize(bpmnError("1", 60_000L).serialize());
+
+        assertEquals(Report.Type.BPMN_ERROR, report.getType());
+        assertEquals("1", report.getExternalTaskId());
+        assertEquals("code", report.getErrorCode());
+        assertEquals("message", report.getErrorMessage());
+        assertEquals(Map.of("variable", "value"), report.getVariables());
+    }
+
+
+    private static Report failure(final String externalTaskId, final long lockRemaining) {
+        return Report.failure(task(externalTaskId, lockRemaining), "message", "details", 2, 1000L);
+    }
+
+    private static Report bpmnError(final String externalTaskId, final long lockRemaining) {
+        return Report.bpmnError(task(externalTaskId, lockRemaining), "code", "message", Map.of("variable", "value"));
+    }
+
+    private static ExternalTask task(final String externalTaskId, final long lockRemaining) {
+        final ExternalTask externalTask = mock(ExternalTask.class);
+        when(externalTask.getId()).thenReturn(externalTaskId);
+        when(externalTask.getLockExpirationTime()).thenReturn(new Date(System.currentTimeMillis() + lockRemaining));
+        return externalTask;
+    }
+
+
+    /**
+     * Records reports by task-id, might be unreachable or reject any report.
+     */
+    private static class StubExternalTaskService implements ExternalTaskService {
+
+        private final List<String> received = new ArrayList<>();
+        private Map<String, Object> variables;
+        private boolean unreachable;
+        private boolean rejecting;
+
+        private void receive(final String report) {
+            if (this.unreachable) {
+                throw new ConnectionLostException("engine unreachable", new IOException());
+            }
+            if (this.rejecting) {
+                throw new NotFoundException("task not found", new RestException("task not found", "NotFound", 404));
+            }
+            this.received.add(report);
+        }
+
+        @Override
+        public void handleFailure(final ExternalTask externalTask, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+            this.receive("failure:" + externalTask.getId());
+        }
+
+        @Override
+        public void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout) {
+            this.receive("failure:" + externalTaskId);
+        }
+
+        @Override
+        public void handleFailure(final String externalTaskId, final String errorMessage, final String errorDetails, final int retries, final long retryTimeout,
+                                  final Map<String, Object> variables, final Map<String, Object> localVariables) {
+            this.receive("failure:" + externalTaskId);
+        }
+
+        @Override
+        public void handleBpmnError(final ExternalTask externalTask, final String errorCode) {
+            this.receive("bpmnError:" + externalTask.getId());
+        }
+
+        @Override
+        public void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage) {
+            this.receive("bpmnError:" + externalTask.getId());
+        }
+
+        @Override
+        public void handleBpmnError(final ExternalTask externalTask, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+            this.receive("bpmnError:" + externalTask.getId());
+            this.variables = variables;
+        }
+
+        @Override
+        public void handleBpmnError(final String externalTaskId, final String errorCode, final String errorMessage, final Map<String, Object> variables) {
+            this.receive("bpmnError:" + externalTaskId);
+            this.variables = variables;
+        }
+
+        @Override
+        public void lock(final String externalTaskId, final long lockDuration) {
+        }
+
+        @Override
+        public void lock(final ExternalTask externalTask, final long lockDuration) {
+        }
+
+        @Override
+        public void unlock(final ExternalTask externalTask) {
+        }
+
+        @Override
+        public void complete(final ExternalTask externalTask) {
+        }
+
+        @Override
+        public void setVariables(final String processInstanceId, final Map<String, Object> variables) {
+        }
+
+        @Override
+        public void setVariables(final ExternalTask externalTask, final Map<String, Object> variables) {
+        }
+
+        @Override
+        public void complete(final ExternalTask externalTask, final Map<String, Object> variables) {
+        }
+
+        @Override
+        public void complete(final ExternalTask externalTask, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+        }
+
+        @Override
+        public void complete(final String externalTaskId, final Map<String, Object> variables, final Map<String, Object> localVariables) {
+        }
+
+        @Override
+        public void extendLock(final ExternalTask externalTask, final long newDuration) {
+        }
+
+        @Override
+        public void extendLock(final String externalTaskId, final long newDuration) {
+        }
+    }
+
+}
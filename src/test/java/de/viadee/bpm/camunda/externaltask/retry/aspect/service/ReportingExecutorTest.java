@@ -0,0 +1,208 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ReportingExecutorTest {
+
+    private ReportingExecutor reportingExecutor;
+
+
+    @AfterEach
+    public void closeReportingExecutor() {
+        this.reportingExecutor.close();
+    }
+
+
+    @Test
+    public void synchronousByDefaultTest() {
+        this.reportingExecutor = new ReportingExecutor(new ExternalTaskRetryAspectProperties.AsyncReporting());
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger reported = new AtomicInteger();
+
+        this.reportingExecutor.execute(task("1"), () -> {
+            assertEquals(caller, Thread.currentThread());
+            reported.incrementAndGet();
+        });
+
+        assertFalse(this.reportingExecutor.isAsynchronous());
+        assertEquals(1, reported.get());
+    }
+
+
+    @Test
+    public void inOrderPerTaskTest() {
+        this.reportingExecutor = new ReportingExecutor(this.asyncReporting(4, 10_000, ReportingExecutor.OverflowPolicy.BLOCK));
+        final Map<String, List<Integer>> reports = new ConcurrentHashMap<>();
+        final ExternalTask[] tasks = new ExternalTask[10];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = task(String.valueOf(i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            final String taskId = String.valueOf(i % 10);
+            final int sequence = i;
+            this.reportingExecutor.execute(tasks[i % 10],
+                    () -> reports.computeIfAbsent(taskId, key -> new CopyOnWriteArrayList<>()).add(sequence));
+        }
+        this.reportingExecutor.close(); // flush
+
+        assertEquals(10, reports.size());
+        reports.values().forEach(sequences -> {
+            assertEquals(100, sequences.size());
+            for (int i = 1; i < sequences.size(); i++) {
+                assertTrue(sequences.get(i - 1) < sequences.get(i));
+            }
+        });
+    }
+
+
+    @Test
+    public void discardOnOverflowTest() throws InterruptedException {
+        this.reportingExecutor = new ReportingExecutor(this.asyncReporting(1, 1, ReportingExecutor.OverflowPolicy.DISCARD));
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch running = new CountDownLatch(1);
+        final AtomicInteger reported = new AtomicInteger();
+
+        this.reportingExecutor.execute(task("1"), () -> {
+            running.countDown();
+            await(blocked);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        this.reportingExecutor.execute(task("1"), reported::incrementAndGet); // queued
+        this.reportingExecutor.execute(task("1"), reported::incrementAndGet); // discarded
+
+        blocked.countDown();
+        this.reportingExecutor.close();
+
+        assertEquals(1, reported.get());
+        assertEquals(1, this.reportingExecutor.getDiscardCount());
+    }
+
+
+    @Test
+    public void callerRunsOnOverflowTest() throws InterruptedException {
+        this.reportingExecutor = new ReportingExecutor(this.asyncReporting(1, 1, ReportingExecutor.OverflowPolicy.CALLER_RUNS));
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch running = new CountDownLatch(1);
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        this.reportingExecutor.execute(task("1"), () -> {
+            running.countDown();
+            await(blocked);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        this.reportingExecutor.execute(task("1"), () -> threads.add(Thread.currentThread())); // queued
+        this.reportingExecutor.execute(task("1"), () -> threads.add(Thread.currentThread())); // caller runs
+
+        assertEquals(List.of(Thread.currentThread()), threads);
+        blocked.countDown();
+        this.reportingExecutor.close();
+
+        assertEquals(2, threads.size());
+        assertNotEquals(Thread.currentThread(), threads.get(1));
+    }
+
+
+    @Test
+    public void failingReportIsolatedTest() {
+        this.reportingExecutor = new ReportingExecutor(this.asyncReporting(1, 10, ReportingExecutor.OverflowPolicy.BLOCK));
+        final AtomicInteger reported = new AtomicInteger();
+
+        this.reportingExecutor.execute(task("1"), () -> {
+            throw new IllegalStateException("engine unavailable");
+        });
+        this.reportingExecutor.execute(task("1"), reported::incrementAndGet);
+        this.reportingExecutor.close();
+
+        assertEquals(1, reported.get());
+    }
+
+
+    @Test
+    public void reportAfterCloseTest() {
+        this.reportingExecutor = new ReportingExecutor(this.asyncReporting(1, 10, ReportingExecutor.OverflowPolicy.DISCARD));
+        final AtomicInteger reported = new AtomicInteger();
+        this.reportingExecutor.close();
+
+        this.reportingExecutor.execute(task("1"), reported::incrementAndGet);
+
+        assertEquals(1, reported.get());
+    }
+
+
+    private ExternalTaskRetryAspectProperties.AsyncReporting asyncReporting(final int lanes,
+                                                                           final int queueCapacity,
+                                                                           final ReportingExecutor.OverflowPolicy overflowPolicy) {
+        final ExternalTaskRetryAspectProperties.AsyncReporting asyncReporting = new ExternalTaskRetryAspectProperties.AsyncReporting();
+        asyncReporting.setEnabled(true);
+        asyncReporting.setLanes(lanes);
+        asyncReporting.setQueueCapacity(queueCapacity);
+        asyncReporting.setOverflowPolicy(overflowPolicy);
+        return asyncReporting;
+    }
+
+    private static ExternalTask task(final String id) {
+        final ExternalTask externalTask = mock(ExternalTask.class);
+        when(externalTask.getId()).thenReturn(id);
+        return externalTask;
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
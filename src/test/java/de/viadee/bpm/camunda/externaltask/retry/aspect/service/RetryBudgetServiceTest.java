@@ -0,0 +1,169 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class RetryBudgetServiceTest {
+
+    private static final RetryDecision DECISION = new RetryDecision(3, 1000L);
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private ExternalTaskRetryAspectProperties.Budget budget;
+    private RetryBudgetService retryBudgetService;
+
+
+    @BeforeEach
+    public void initRetryBudgetService() {
+        when(this.externalTask.getTopicName()).thenReturn("topic");
+        this.budget = new ExternalTaskRetryAspectProperties.Budget();
+        this.budget.setEnabled(true);
+        this.budget.setWindow(Duration.ofSeconds(10));
+        this.budget.setRatio(0.5);
+        this.budget.setMinimumRetries(2);
+        this.retryBudgetService = new RetryBudgetService(this.budget, this.now::get);
+    }
+
+
+    @Test
+    public void disabledTest() {
+        this.budget.setEnabled(false);
+        for (int i = 0; i < 100; i++) {
+            assertSame(DECISION, this.adjust());
+        }
+    }
+
+
+    @Test
+    public void stretchWhenExhaustedTest() {
+        assertSame(DECISION, this.adjust());
+        assertSame(DECISION, this.adjust());
+
+        final RetryDecision stretched = this.adjust(); // 3 retries > minimum of 2
+        assertEquals(3, stretched.getRemainingRetries());
+        assertEquals(4000L, stretched.getNextRetryInterval());
+    }
+
+
+    @Test
+    public void consumeWhenExhaustedTest() {
+        this.budget.setStrategy(RetryBudgetService.Strategy.CONSUME);
+        this.budget.setRetryConsumption(3);
+        this.adjust();
+        this.adjust();
+
+        final RetryDecision consumed = this.adjust();
+        assertEquals(1, consumed.getRemainingRetries());
+        assertEquals(1000L, consumed.getNextRetryInterval());
+
+        final RetryDecision incident = this.retryBudgetService.adjust(Object.class, this.externalTask, new RetryDecision(2, 1000L));
+        assertEquals(0, incident.getRemainingRetries());
+        assertEquals(0L, incident.getNextRetryInterval());
+    }
+
+
+    @Test
+    public void successesExtendBudgetTest() {
+        for (int i = 0; i < 10; i++) {
+            this.retryBudgetService.recordSuccess(Object.class, this.externalTask);
+        }
+        // 0.5 * 10 successes = 5 retries allowed
+        for (int i = 0; i < 5; i++) {
+            assertSame(DECISION, this.adjust());
+        }
+        assertEquals(4000L, this.adjust().getNextRetryInterval());
+    }
+
+
+    @Test
+    public void windowSlidesTest() {
+        this.adjust();
+        this.adjust();
+        assertEquals(4000L, this.adjust().getNextRetryInterval());
+
+        this.now.addAndGet(Duration.ofSeconds(10).toMillis());
+        assertSame(DECISION, this.adjust());
+    }
+
+
+    @Test
+    public void budgetPerTopicTest() {
+        this.adjust();
+        this.adjust();
+        assertEquals(4000L, this.adjust().getNextRetryInterval());
+
+        when(this.externalTask.getTopicName()).thenReturn("another-topic");
+        assertSame(DECISION, this.adjust());
+    }
+
+
+    @Test
+    public void budgetPerHandlerTest() {
+        this.budget.setKey(RetryBudgetService.Key.HANDLER);
+        this.adjust();
+        this.adjust();
+        assertEquals(4000L, this.adjust().getNextRetryInterval());
+
+        when(this.externalTask.getTopicName()).thenReturn("another-topic");
+        assertEquals(4000L, this.adjust().getNextRetryInterval());
+        assertSame(DECISION, this.retryBudgetService.adjust(String.class, this.externalTask, DECISION));
+    }
+
+
+    @Test
+    public void incidentUntouchedTest() {
+        for (int i = 0; i < 10; i++) {
+            assertSame(RetryDecision.INSTANT_INCIDENT, this.retryBudgetService.adjust(Object.class, this.externalTask, RetryDecision.INSTANT_INCIDENT));
+        }
+        assertSame(DECISION, this.adjust());
+    }
+
+
+    private RetryDecision adjust() {
+        return this.retryBudgetService.adjust(Object.class, this.externalTask, DECISION);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetrySchedule;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class RetryScheduleCacheTest {
+
+    private static final long MINUTES_TO_MILLIS = 60 * 1000L;
+
+
+    @Test
+    public void compiledOnlyOnceTest() {
+        final PropertyService propertyService = new PropertyService(new ExternalTaskRetryAspectProperties());
+        final ExternalTask externalTask = mock(ExternalTask.class);
+        when(externalTask.getExtensionProperty("RETRY_CONFIG")).thenReturn("R5/PT2M");
+
+        final RetrySchedule first = propertyService.retrySchedule(externalTask);
+        final RetrySchedule second = propertyService.retrySchedule(externalTask);
+
+        assertSame(first, second);
+        assertEquals(5, first.getRetries());
+        assertEquals(2 * MINUTES_TO_MILLIS, first.nextRetryInterval(5));
+
+        final RetryScheduleCache cache = propertyService.getRetryScheduleCache();
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+
+    @Test
+    public void invalidPropertyIsCachedAsDefaultTest() {
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.setDefaultBehavior("R2/PT7M");
+        final PropertyService propertyService = new PropertyService(properties);
+
+        final RetrySchedule invalid = propertyService.retrySchedule("invld!");
+
+        assertSame(propertyService.retrySchedule((String) null), invalid);
+        assertEquals(2, invalid.getRetries());
+        assertEquals(7 * MINUTES_TO_MILLIS, invalid.nextRetryInterval(1));
+    }
+
+
+    @Test
+    public void boundedSizeTest() {
+        final RetryScheduleCache cache = new RetryScheduleCache(2, property -> new RetrySchedule(1, new long[]{1L}));
+
+        cache.get("PT1M");
+        cache.get("PT2M");
+        cache.get("PT3M");
+        cache.get("PT3M");
+
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+}
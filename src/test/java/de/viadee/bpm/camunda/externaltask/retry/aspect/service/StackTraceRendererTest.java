@@ -0,0 +1,201 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class StackTraceRendererTest {
+
+    private ExternalTaskRetryAspectProperties.ErrorDetails properties;
+
+
+    @BeforeEach
+    public void initProperties() {
+        this.properties = new ExternalTaskRetryAspectProperties.ErrorDetails();
+        this.properties.setCompact(true);
+    }
+
+
+    @Test
+    public void fullByDefaultTest() {
+        final RuntimeException exception = new RuntimeException("message", new IllegalStateException("cause"));
+        final StringWriter expected = new StringWriter();
+        exception.printStackTrace(new PrintWriter(expected, true));
+
+        final String rendered = new StackTraceRenderer(new ExternalTaskRetryAspectProperties.ErrorDetails()).render(exception);
+
+        assertEquals(expected.toString(), rendered);
+    }
+
+
+    @Test
+    public void frameworkFramesCollapsedTest() {
+        final RuntimeException exception = exception("message",
+                frame("com.example.Handler", "execute"),
+                frame("com.example.Handler$$SpringCGLIB$$0", "execute"),
+                frame("org.springframework.aop.framework.ReflectiveMethodInvocation", "proceed"),
+                frame("jdk.internal.reflect.DirectMethodHandleAccessor", "invoke"),
+                frame("com.example.Client", "fetch"));
+
+        assertEquals("java.lang.RuntimeException: message\n"
+                        + "\tat com.example.Handler.execute(Handler.java:1)\n"
+                        + "\t... 3 framework frame(s)\n"
+                        + "\tat com.example.Client.fetch(Client.java:1)\n",
+                new StackTraceRenderer(this.properties).render(exception));
+    }
+
+
+    @Test
+    public void repeatedFramesCollapsedTest() {
+        final StackTraceElement recursion = frame("com.example.Tree", "walk");
+        final RuntimeException exception = exception("message", recursion, recursion, recursion, frame("com.example.Tree", "root"));
+
+        assertEquals("java.lang.RuntimeException: message\n"
+                        + "\tat com.example.Tree.walk(Tree.java:1)\n"
+                        + "\t... repeated 2 time(s)\n"
+                        + "\tat com.example.Tree.root(Tree.java:1)\n",
+                new StackTraceRenderer(this.properties).render(exception));
+    }
+
+
+    @Test
+    public void framesLimitedExceptRootCauseTest() {
+        this.properties.setMaxFrames(1);
+        final RuntimeException rootCause = exception("root", frame("com.example.A", "a"), frame("com.example.B", "b"));
+        final RuntimeException exception = exception("top", frame("com.example.C", "c"), frame("com.example.D", "d"));
+        exception.initCause(rootCause);
+
+        assertEquals("java.lang.RuntimeException: top\n"
+                        + "\tat com.example.C.c(C.java:1)\n"
+                        + "\t... 1 frame(s) omitted\n"
+                        + "Caused by: java.lang.RuntimeException: root\n"
+                        + "\tat com.example.A.a(A.java:1)\n"
+                        + "\tat com.example.B.b(B.java:1)\n",
+                new StackTraceRenderer(this.properties).render(exception));
+    }
+
+
+    @Test
+    public void causesLimitedTest() {
+        this.properties.setMaxCauses(1);
+        RuntimeException exception = exception("root", frame("com.example.Root", "fail"));
+        for (int i = 3; i > 0; i--) {
+            exception = (RuntimeException) exception("cause-" + i, frame("com.example.Cause" + i, "fail")).initCause(exception);
+        }
+
+        final String rendered = new StackTraceRenderer(this.properties).render(exception);
+
+        assertTrue(rendered.startsWith("java.lang.RuntimeException: cause-1\n"));
+        assertTrue(rendered.contains("Caused by: java.lang.RuntimeException: cause-2\n"));
+        assertFalse(rendered.contains("cause-3"));
+        assertTrue(rendered.contains("\t... 1 cause(s) omitted\n"));
+        assertTrue(rendered.endsWith("Caused by: java.lang.RuntimeException: root\n\tat com.example.Root.fail(Root.java:1)\n"));
+    }
+
+
+    @Test
+    public void truncatedBeforeRootCauseTest() {
+        this.properties.setMaxLength(256);
+        final StackTraceElement[] frames = new StackTraceElement[50];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = frame("com.example.Frame" + i, "call");
+        }
+        this.properties.setMaxFrames(frames.length);
+        final RuntimeException exception = exception("top", frames);
+        exception.initCause(exception("root", frame("com.example.Root", "fail")));
+
+        final String rendered = new StackTraceRenderer(this.properties).render(exception);
+
+        assertTrue(rendered.length() <= 256);
+        assertTrue(rendered.startsWith("java.lang.RuntimeException: top\n"));
+        assertTrue(rendered.contains("\t... truncated\n"));
+        assertTrue(rendered.endsWith("Caused by: java.lang.RuntimeException: root\n\tat com.example.Root.fail(Root.java:1)\n"));
+    }
+
+
+    @Test
+    public void truncatedByUtf8BytesTest() {
+        this.properties.setMaxLength(256);
+        final StackTraceElement[] frames = new StackTraceElement[50];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = frame("com.example.Frame" + i, "call");
+        }
+        this.properties.setMaxFrames(frames.length);
+        final RuntimeException exception = exception("top", frames);
+        exception.initCause(exception("\u00e4\u00f6\u00fc \uD83D\uDE00".repeat(30), frame("com.example.Root", "fail")));
+
+        final String rendered = new StackTraceRenderer(this.properties).render(exception);
+
+        assertTrue(rendered.getBytes(StandardCharsets.UTF_8).length <= 256);
+        assertTrue(rendered.startsWith("Caused by: java.lang.RuntimeException: \u00e4\u00f6\u00fc \uD83D\uDE00"));
+        assertTrue(rendered.endsWith("\t... truncated\n"));
+        final String kept = rendered.substring(0, rendered.length() - "\t... truncated\n".length());
+        assertFalse(Character.isHighSurrogate(kept.charAt(kept.length() - 1)));
+    }
+
+
+    @Test
+    public void circularCausesTest() {
+        final RuntimeException first = exception("first", frame("com.example.A", "a"));
+        final RuntimeException second = exception("second", frame("com.example.B", "b"));
+        first.initCause(second);
+        second.initCause(first);
+
+        final String rendered = new StackTraceRenderer(this.properties).render(first);
+
+        assertTrue(rendered.contains("Caused by: java.lang.RuntimeException: second\n"));
+    }
+
+
+    private static RuntimeException exception(final String message, final StackTraceElement... frames) {
+        final RuntimeException exception = new RuntimeException(message);
+        exception.setStackTrace(frames);
+        return exception;
+    }
+
+    private static StackTraceElement frame(final String className, final String methodName) {
+        final String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return new StackTraceElement(className, methodName, simpleName.replaceAll("\\$.*", "") + ".java", 1);
+    }
+
+}
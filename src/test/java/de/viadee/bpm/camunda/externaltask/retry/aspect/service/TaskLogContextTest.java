@@ -0,0 +1,102 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.service;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.model.RetryDecision;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class TaskLogContextTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+
+
+    @BeforeEach
+    public void initExternalTask() {
+        when(this.externalTask.getId()).thenReturn("task-1");
+        when(this.externalTask.getTopicName()).thenReturn("topic");
+        when(this.externalTask.getProcessInstanceId()).thenReturn("process-instance-1");
+        when(this.externalTask.getActivityId()).thenReturn("activity");
+    }
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+
+    @Test
+    public void fieldsWhileLoggingTest() {
+        try (TaskLogContext ignored = TaskLogContext.of(this.externalTask, new RetryDecision(2, 60_000L))) {
+            assertEquals("task-1", MDC.get(TaskLogContext.EXTERNAL_TASK_ID));
+            assertEquals("topic", MDC.get(TaskLogContext.TOPIC_NAME));
+            assertEquals("process-instance-1", MDC.get(TaskLogContext.PROCESS_INSTANCE_ID));
+            assertEquals("activity", MDC.get(TaskLogContext.ACTIVITY_ID));
+            assertEquals("2", MDC.get(TaskLogContext.REMAINING_RETRIES));
+            assertEquals("60000", MDC.get(TaskLogContext.NEXT_RETRY_INTERVAL));
+        }
+
+        assertNull(MDC.get(TaskLogContext.EXTERNAL_TASK_ID));
+        assertNull(MDC.get(TaskLogContext.REMAINING_RETRIES));
+    }
+
+
+    @Test
+    public void previousValuesRestoredTest() {
+        MDC.put(TaskLogContext.EXTERNAL_TASK_ID, "outer-task");
+
+        try (TaskLogContext ignored = TaskLogContext.of(this.externalTask)) {
+            assertEquals("task-1", MDC.get(TaskLogContext.EXTERNAL_TASK_ID));
+            assertNull(MDC.get(TaskLogContext.REMAINING_RETRIES));
+        }
+
+        assertEquals("outer-task", MDC.get(TaskLogContext.EXTERNAL_TASK_ID));
+        assertNull(MDC.get(TaskLogContext.TOPIC_NAME));
+    }
+
+
+    @Test
+    public void loggerCachedTest() {
+        assertSame(Loggers.of(TaskLogContextTest.class), Loggers.of(TaskLogContextTest.class));
+    }
+
+}
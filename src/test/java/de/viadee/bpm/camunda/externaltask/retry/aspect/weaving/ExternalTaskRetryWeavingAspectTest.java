@@ -0,0 +1,147 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2021, viadee IT-Unternehmensberatung AG
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.viadee.bpm.camunda.externaltask.retry.aspect.weaving;
+
+import de.viadee.bpm.camunda.externaltask.retry.aspect.ExternalTaskRetryAspect;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.config.ExternalTaskRetryAspectProperties;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.error.ExternalTaskBusinessError;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.BusinessErrorService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.FailureService;
+import de.viadee.bpm.camunda.externaltask.retry.aspect.service.PropertyService;
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+
+public class ExternalTaskRetryWeavingAspectTest {
+
+    private final ExternalTask externalTask = mock(ExternalTask.class);
+    private final ExternalTaskService externalTaskService = mock(ExternalTaskService.class);
+    private final ExternalTaskHandler externalTaskHandler = (externalTask, externalTaskService) -> { };
+    private final ExternalTaskRetryWeavingAspect weavingAspect = new ExternalTaskRetryWeavingAspect();
+    private ExternalTaskRetryWeaving weaving;
+
+
+    @BeforeEach
+    public void initWeaving() {
+        when(this.externalTask.getId()).thenReturn("taskId");
+        when(this.externalTask.getRetries()).thenReturn(null); // 1st try
+
+        final ExternalTaskRetryAspectProperties properties = new ExternalTaskRetryAspectProperties();
+        properties.setDefaultBehavior("R3/PT5M");
+        this.weaving = new ExternalTaskRetryWeaving(
+                new ExternalTaskRetryAspect(new BusinessErrorService(), new FailureService(new PropertyService(properties))));
+    }
+
+    @AfterEach
+    public void destroyWeaving() {
+        this.weaving.destroy();
+    }
+
+
+    @Test
+    public void unconfiguredTest() {
+        assertFalse(ExternalTaskRetryWeavingAspect.isConfigured());
+
+        this.weavingAspect.handleErrorAfterThrown(this.externalTaskHandler, new RuntimeException("failure"),
+                this.externalTask, this.externalTaskService);
+
+        verifyNoInteractions(this.externalTaskService);
+    }
+
+
+    @Test
+    public void failureTest() {
+        this.weaving.afterPropertiesSet();
+        assertTrue(ExternalTaskRetryWeavingAspect.isConfigured());
+
+        this.weavingAspect.handleErrorAfterThrown(this.externalTaskHandler, new RuntimeException("failure"),
+                this.externalTask, this.externalTaskService);
+
+        verify(this.externalTaskService).handleFailure(eq(this.externalTask), eq("RuntimeException: failure"),
+                anyString(), eq(3), eq(5 * 60 * 1000L));
+    }
+
+
+    @Test
+    public void businessErrorTest() {
+        this.weaving.afterPropertiesSet();
+
+        this.weavingAspect.handleErrorAfterThrown(this.externalTaskHandler, new ExternalTaskBusinessError("code"),
+                this.externalTask, this.externalTaskService);
+
+        verify(this.externalTaskService).handleBpmnError(eq(this.externalTask), eq("code"), any());
+    }
+
+
+    @Test
+    public void destroyTest() {
+        this.weaving.afterPropertiesSet();
+        this.weaving.destroy();
+
+        assertFalse(ExternalTaskRetryWeavingAspect.isConfigured());
+        this.weavingAspect.handleErrorAfterThrown(this.externalTaskHandler, new RuntimeException("failure"),
+                this.externalTask, this.externalTaskService);
+
+        verifyNoInteractions(this.externalTaskService);
+    }
+
+
+    @Test
+    public void destroyAfterOtherContextStartedTest() {
+        final ExternalTaskRetryWeaving otherWeaving = new ExternalTaskRetryWeaving(
+                new ExternalTaskRetryAspect(new BusinessErrorService(), new FailureService(new PropertyService(new ExternalTaskRetryAspectProperties()))));
+        this.weaving.afterPropertiesSet();
+        otherWeaving.afterPropertiesSet();
+
+        // the other context's retry-aspect is kept
+        this.weaving.destroy();
+        assertTrue(ExternalTaskRetryWeavingAspect.isConfigured());
+
+        otherWeaving.destroy();
+        assertFalse(ExternalTaskRetryWeavingAspect.isConfigured());
+    }
+
+}